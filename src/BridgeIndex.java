@@ -0,0 +1,199 @@
+import java.util.*;
+
+/**
+ * Precomputed bridge words of (word1, word2) pairs within a memory budget.
+ * A source word is either indexed for all its second words or not at all, and a bitset
+ * records which sources are indexed. Sources are taken in order of decreasing out-weight,
+ * i.e. in order of how often they occur in text, as long as their bridge lists fit into
+ * the budget. Each pair is stored under a long key packing the two node IDs in an
+ * open-addressing table that points into one int array of bridge IDs, so a lookup is a
+ * single hash probe. Pairs of sources that are not indexed must be answered by scanning.
+ */
+public class BridgeIndex {
+    private static final long EMPTY = -1L; // Marks an unused slot; node IDs are non-negative
+    private static final int BYTES_PER_PAIR = 36; // Table slots of 12 bytes, up to 8/3 per pair, plus the pair start
+    private static final int[] NO_BRIDGES = new int[0];
+
+    private final BitSet indexedSources;
+    private final long[] keys;
+    private final int[] pairs; // Pair number of every used slot
+    private final int[] starts; // Bridges of pair i are bridges[starts[i]] .. bridges[starts[i + 1] - 1]
+    private final int[] bridges;
+
+    /**
+     * Build the index
+     * @param snapshot Graph snapshot
+     * @param maxBytes Memory budget for the index, in bytes
+     */
+    public BridgeIndex(GraphSnapshot snapshot, long maxBytes) {
+        int n = snapshot.getNodeCount();
+        int[] offsets = snapshot.getOutOffsets();
+        int[] targets = snapshot.getOutTargets();
+
+        // Most frequent words first
+        Integer[] order = new Integer[n];
+        for (int id = 0; id < n; id++) {
+            order[id] = id;
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(snapshot.getOutWeightSum(b), snapshot.getOutWeightSum(a)));
+
+        indexedSources = new BitSet(n);
+        int[] counts = new int[n]; // Bridges of the current source per second word
+        int[] seconds = new int[16]; // Second words of the current source, in order of first appearance
+        long[] pairKeys = new long[16];
+        int[] pairStarts = new int[16];
+        int[] bridgeIds = new int[16];
+        int pairCount = 0;
+        int bridgeCount = 0;
+        long remaining = maxBytes;
+
+        for (int source : order) {
+            // Every two-edge path is one bridge entry; skip sources that can't fit even without pair overhead
+            long entries = 0;
+            for (int p = offsets[source]; p < offsets[source + 1]; p++) {
+                entries += offsets[targets[p] + 1] - offsets[targets[p]];
+            }
+            if (entries == 0) {
+                indexedSources.set(source); // No bridge words from this source at all
+                continue;
+            }
+            if (4 * entries > remaining) {
+                continue;
+            }
+
+            int secondCount = 0;
+            for (int p = offsets[source]; p < offsets[source + 1]; p++) {
+                int bridge = targets[p];
+                for (int q = offsets[bridge]; q < offsets[bridge + 1]; q++) {
+                    int second = targets[q];
+                    if (counts[second]++ == 0) {
+                        if (secondCount == seconds.length) {
+                            seconds = Arrays.copyOf(seconds, secondCount * 2);
+                        }
+                        seconds[secondCount++] = second;
+                    }
+                }
+            }
+            long bytes = 4 * entries + (long) BYTES_PER_PAIR * secondCount;
+            if (bytes > remaining || bridgeCount + entries > Integer.MAX_VALUE - 8) {
+                for (int i = 0; i < secondCount; i++) {
+                    counts[seconds[i]] = 0;
+                }
+                continue;
+            }
+            remaining -= bytes;
+            indexedSources.set(source);
+
+            // Lay out the pairs of this source, then fill them visiting bridges in ID order
+            if (pairCount + secondCount > pairKeys.length) {
+                int capacity = Math.max(pairKeys.length * 2, pairCount + secondCount);
+                pairKeys = Arrays.copyOf(pairKeys, capacity);
+                pairStarts = Arrays.copyOf(pairStarts, capacity);
+            }
+            if (bridgeCount + entries > bridgeIds.length) {
+                bridgeIds = Arrays.copyOf(bridgeIds, (int) Math.min(Integer.MAX_VALUE - 8,
+                        Math.max(2L * bridgeIds.length, bridgeCount + entries)));
+            }
+            for (int i = 0; i < secondCount; i++) {
+                int second = seconds[i];
+                pairKeys[pairCount] = key(source, second);
+                pairStarts[pairCount++] = bridgeCount;
+                int count = counts[second];
+                counts[second] = bridgeCount; // Reused as the fill position of the pair
+                bridgeCount += count;
+            }
+            for (int p = offsets[source]; p < offsets[source + 1]; p++) {
+                int bridge = targets[p];
+                for (int q = offsets[bridge]; q < offsets[bridge + 1]; q++) {
+                    bridgeIds[counts[targets[q]]++] = bridge;
+                }
+            }
+            for (int i = 0; i < secondCount; i++) {
+                counts[seconds[i]] = 0;
+            }
+        }
+
+        starts = Arrays.copyOf(pairStarts, pairCount + 1);
+        starts[pairCount] = bridgeCount;
+        bridges = Arrays.copyOf(bridgeIds, bridgeCount);
+
+        // Table at most 3/4 full
+        int capacity = 4;
+        while (capacity * 3L < pairCount * 4L) {
+            capacity <<= 1;
+        }
+        keys = new long[capacity];
+        pairs = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        for (int i = 0; i < pairCount; i++) {
+            int slot = slotOf(pairKeys[i]);
+            keys[slot] = pairKeys[i];
+            pairs[slot] = i;
+        }
+    }
+
+    private static long key(int fromId, int toId) {
+        return ((long) fromId << 32) | toId;
+    }
+
+    /**
+     * Find the slot holding a key, or the empty slot where it would be inserted
+     */
+    private int slotOf(long key) {
+        int mask = keys.length - 1;
+        long h = key * 0x9E3779B97F4A7C15L;
+        int slot = (int) (h ^ (h >>> 32)) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Check whether the bridge words of a source word are indexed
+     * @param fromId First node ID
+     * @return true if getBridges answers every pair starting at this node
+     */
+    public boolean isIndexed(int fromId) {
+        return indexedSources.get(fromId);
+    }
+
+    /**
+     * Get the bridge words between two nodes
+     * @param fromId First node ID; must be indexed
+     * @param toId Second node ID
+     * @return Bridge node IDs in ascending order, empty if there are none
+     */
+    public int[] getBridges(int fromId, int toId) {
+        int slot = slotOf(key(fromId, toId));
+        if (keys[slot] == EMPTY) {
+            return NO_BRIDGES;
+        }
+        int pair = pairs[slot];
+        return Arrays.copyOfRange(bridges, starts[pair], starts[pair + 1]);
+    }
+
+    /**
+     * Get the number of indexed source words
+     * @return Number of indexed sources
+     */
+    public int getIndexedSourceCount() {
+        return indexedSources.cardinality();
+    }
+
+    /**
+     * Get the number of indexed (word1, word2) pairs that have bridge words
+     * @return Number of pairs
+     */
+    public int getPairCount() {
+        return starts.length - 1;
+    }
+
+    /**
+     * Estimate the memory held by the index
+     * @return Approximate size in bytes
+     */
+    public long estimateBytes() {
+        return 12L * keys.length + 4L * starts.length + 4L * bridges.length + indexedSources.size() / 8;
+    }
+}
@@ -0,0 +1,174 @@
+import java.util.Arrays;
+
+/**
+ * Bridge word queries as the intersection out(word1) ∩ in(word2) of two sorted rows.
+ * The out-edges and in-edges of a GraphSnapshot are sorted by node ID already, so the
+ * rows are used in place. Rows of similar length are merged; a short row is intersected
+ * with a long one by galloping search, in time O(short * log(long / short)). Rows of the
+ * densest nodes also get a bitset over all node IDs, so that the other row can be tested
+ * against it in constant time per entry, or, if both rows are dense, the two bitsets are
+ * intersected a word at a time. Bridges come out in ascending ID order, as from a scan of
+ * the out-edges of word1. The engine is immutable and can be shared by several threads.
+ */
+public class BridgeWordEngine {
+    private static final int DENSE_FRACTION = 32; // Rows with at least n / 32 entries get a bitset, at most the row size
+    private static final int GALLOP_RATIO = 8; // Gallop instead of merging when one row is this much longer
+    private static final int[] NO_BRIDGES = new int[0];
+
+    private final int n;
+    private final int[] outOffsets;
+    private final int[] outTargets;
+    private final int[] inOffsets;
+    private final int[] inSources;
+    private final long[][] outBits; // Bitset of the out-row of every dense node, null for others
+    private final long[][] inBits;
+
+    /**
+     * Constructor
+     * @param snapshot Graph snapshot
+     */
+    public BridgeWordEngine(GraphSnapshot snapshot) {
+        n = snapshot.getNodeCount();
+        outOffsets = snapshot.getOutOffsets();
+        outTargets = snapshot.getOutTargets();
+        inOffsets = snapshot.getInOffsets();
+        inSources = snapshot.getInSources();
+        outBits = denseBitsets(outOffsets, outTargets);
+        inBits = denseBitsets(inOffsets, inSources);
+    }
+
+    private long[][] denseBitsets(int[] offsets, int[] ids) {
+        int minLength = Math.max(1, n / DENSE_FRACTION);
+        long[][] result = new long[n][];
+        for (int node = 0; node < n; node++) {
+            if (offsets[node + 1] - offsets[node] >= minLength) {
+                long[] bits = new long[(n + 63) >>> 6];
+                for (int p = offsets[node]; p < offsets[node + 1]; p++) {
+                    bits[ids[p] >>> 6] |= 1L << ids[p];
+                }
+                result[node] = bits;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Find the bridge words between two nodes
+     * @param fromId First node ID
+     * @param toId Second node ID
+     * @return Bridge node IDs in ascending order
+     */
+    public int[] findBridges(int fromId, int toId) {
+        int outFrom = outOffsets[fromId];
+        int outTo = outOffsets[fromId + 1];
+        int inFrom = inOffsets[toId];
+        int inTo = inOffsets[toId + 1];
+        int outLength = outTo - outFrom;
+        int inLength = inTo - inFrom;
+        if (outLength == 0 || inLength == 0) {
+            return NO_BRIDGES;
+        }
+
+        long[] outSet = outBits[fromId];
+        long[] inSet = inBits[toId];
+        int shorter = Math.min(outLength, inLength);
+        if (outSet != null && inSet != null && shorter > outSet.length) {
+            return intersectBits(outSet, inSet, shorter);
+        }
+        if (inSet != null && outLength <= inLength) {
+            return probe(outTargets, outFrom, outTo, inSet);
+        }
+        if (outSet != null && inLength <= outLength) {
+            return probe(inSources, inFrom, inTo, outSet);
+        }
+        if (outLength * GALLOP_RATIO < inLength) {
+            return gallop(outTargets, outFrom, outTo, inSources, inFrom, inTo);
+        }
+        if (inLength * GALLOP_RATIO < outLength) {
+            return gallop(inSources, inFrom, inTo, outTargets, outFrom, outTo);
+        }
+        return merge(outTargets, outFrom, outTo, inSources, inFrom, inTo);
+    }
+
+    /**
+     * Keep the entries of a row whose bit is set
+     */
+    private static int[] probe(int[] row, int from, int to, long[] bits) {
+        int[] result = new int[to - from];
+        int count = 0;
+        for (int p = from; p < to; p++) {
+            int id = row[p];
+            if ((bits[id >>> 6] & (1L << id)) != 0) {
+                result[count++] = id;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Intersect two bitsets a word at a time
+     */
+    private static int[] intersectBits(long[] a, long[] b, int maxCount) {
+        int[] result = new int[maxCount];
+        int count = 0;
+        for (int w = 0; w < a.length; w++) {
+            long word = a[w] & b[w];
+            while (word != 0) {
+                result[count++] = (w << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Intersect two sorted rows of similar length by merging them
+     */
+    private static int[] merge(int[] a, int aFrom, int aTo, int[] b, int bFrom, int bTo) {
+        int[] result = new int[Math.min(aTo - aFrom, bTo - bFrom)];
+        int count = 0;
+        int i = aFrom;
+        int j = bFrom;
+        while (i < aTo && j < bTo) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[count++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Intersect a short sorted row with a long one, looking up each entry of the short row
+     * by exponential search from the position of the previous one
+     */
+    private static int[] gallop(int[] small, int smallFrom, int smallTo, int[] large, int largeFrom, int largeTo) {
+        int[] result = new int[smallTo - smallFrom];
+        int count = 0;
+        int low = largeFrom;
+        for (int i = smallFrom; i < smallTo && low < largeTo; i++) {
+            int id = small[i];
+            // Find a range [low, high) that must contain id if it is present
+            int step = 1;
+            int high = low;
+            while (high < largeTo && large[high] < id) {
+                low = high + 1;
+                high += step;
+                step <<= 1;
+            }
+            int p = Arrays.binarySearch(large, low, Math.min(high + 1, largeTo), id);
+            if (p >= 0) {
+                result[count++] = id;
+                low = p + 1;
+            } else {
+                low = -p - 1;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+}
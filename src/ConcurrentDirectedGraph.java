@@ -0,0 +1,140 @@
+import java.io.IOException;
+import java.io.Reader;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe directed word graph for ingesting several document streams at once.
+ * Nodes and edges are created atomically with computeIfAbsent and edge weights are
+ * LongAdder counters, so concurrent addEdge calls never lose an update and threads
+ * adding different edges do not contend on a shared lock.
+ * Once ingestion is finished, toDirectedGraph() hands the result to the analysis code.
+ */
+public class ConcurrentDirectedGraph {
+    // Graph representation using concurrent adjacency maps, mapped as <target node, weight counter>
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, LongAdder>> adjacencyMap;
+
+    /**
+     * Constructor
+     */
+    public ConcurrentDirectedGraph() {
+        adjacencyMap = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Add a node (word) to the graph
+     * @param word The word to add as a node
+     */
+    public void addNode(String word) {
+        neighborsOf(word.toLowerCase());
+    }
+
+    private ConcurrentHashMap<String, LongAdder> neighborsOf(String word) {
+        ConcurrentHashMap<String, LongAdder> neighbors = adjacencyMap.get(word);
+        if (neighbors == null) {
+            neighbors = adjacencyMap.computeIfAbsent(word, k -> new ConcurrentHashMap<>());
+        }
+        return neighbors;
+    }
+
+    /**
+     * Add an edge from source word to target word, or increase the weight of an existing edge
+     * @param fromWord Source word
+     * @param toWord Target word
+     */
+    public void addEdge(String fromWord, String toWord) {
+        addEdge(fromWord, toWord, 1);
+    }
+
+    /**
+     * Add an edge from source word to target word, or increase the weight of an existing edge
+     * @param fromWord Source word
+     * @param toWord Target word
+     * @param weight Weight to add to the edge
+     */
+    public void addEdge(String fromWord, String toWord, int weight) {
+        fromWord = fromWord.toLowerCase();
+        toWord = toWord.toLowerCase();
+
+        // Ensure both words are in the graph
+        ConcurrentHashMap<String, LongAdder> neighbors = neighborsOf(fromWord);
+        neighborsOf(toWord);
+
+        // Update edge weight
+        LongAdder counter = neighbors.get(toWord);
+        if (counter == null) {
+            counter = neighbors.computeIfAbsent(toWord, k -> new LongAdder());
+        }
+        counter.add(weight);
+    }
+
+    /**
+     * Add an edge for each adjacent word pair of one text stream.
+     * Several threads may ingest different streams into the same graph at once;
+     * the last word of one stream is not linked to the first word of another.
+     * @param reader Text source
+     * @throws IOException Exception reading the stream
+     */
+    public void ingest(Reader reader) throws IOException {
+        WordTokenizer tokenizer = new WordTokenizer(reader);
+        String previousWord = tokenizer.nextWord();
+        String currentWord;
+        while (previousWord != null && (currentWord = tokenizer.nextWord()) != null) {
+            addEdge(previousWord, currentWord);
+            previousWord = currentWord;
+        }
+    }
+
+    /**
+     * Check if the graph contains the specified node (word)
+     * @param word The word to check
+     * @return true if the graph contains the word, false otherwise
+     */
+    public boolean containsNode(String word) {
+        return adjacencyMap.containsKey(word.toLowerCase());
+    }
+
+    /**
+     * Get the weight of an edge between two nodes
+     * @param fromWord Source node
+     * @param toWord Target node
+     * @return Current weight of the edge, or 0 if the edge doesn't exist
+     */
+    public long getEdgeWeight(String fromWord, String toWord) {
+        Map<String, LongAdder> neighbors = adjacencyMap.get(fromWord.toLowerCase());
+        if (neighbors == null) {
+            return 0;
+        }
+        LongAdder counter = neighbors.get(toWord.toLowerCase());
+        return counter == null ? 0 : counter.sum();
+    }
+
+    /**
+     * Get the number of nodes in the graph
+     * @return Number of nodes
+     */
+    public int getNodeCount() {
+        return adjacencyMap.size();
+    }
+
+    /**
+     * Copy the graph into a DirectedGraph for analysis.
+     * Should be called after all ingest threads have finished; edges added concurrently
+     * with the copy may or may not be included.
+     * @return Directed graph with the same nodes and edge weights
+     * @throws ArithmeticException If an edge weight does not fit in an int
+     */
+    public DirectedGraph toDirectedGraph() {
+        DirectedGraph graph = new DirectedGraph();
+        for (String word : adjacencyMap.keySet()) {
+            graph.addNode(word);
+        }
+        for (Map.Entry<String, ConcurrentHashMap<String, LongAdder>> entry : adjacencyMap.entrySet()) {
+            for (Map.Entry<String, LongAdder> edge : entry.getValue().entrySet()) {
+                graph.addEdge(entry.getKey(), edge.getKey(), Math.toIntExact(edge.getValue().sum()));
+            }
+        }
+        return graph;
+    }
+}
@@ -3,80 +3,417 @@ import java.util.*;
 /**
  * Directed graph class for representing word relationships
  * 这是一个有向图类，用于表示单词之间的关系（无实际功能性变化，仅注释调整）
+ * Every word is interned once to a dense int ID; adjacency is stored in primitive
+ * int-to-int maps, and the String based methods are a facade over the IDs.
  */
 public class DirectedGraph {
-    // Graph representation using adjacency map
-    private Map<String, Map<String, Integer>> adjacencyMap;
-    
+    // Word dictionary: word -> ID and ID -> word
+    private Map<String, Integer> wordIds;
+    // Read-only copy of wordIds given to snapshots; IDs are never reassigned, so it is
+    // shared by every snapshot taken until a new word is added
+    private Map<String, Integer> frozenWordIds;
+    private List<String> words;
+    // Graph representation using adjacency maps, indexed by node ID and mapped as <target ID, weight>
+    private List<IntIntHashMap> adjacency;
+    // Reverse index kept up to date with every edge, mapped as <source ID, weight>
+    private List<IntIntHashMap> incoming;
+    // Cached total weight of the outgoing and incoming edges of each node
+    private int[] outWeightSums;
+    private int[] inWeightSums;
+    // Incremented on every change, so derived structures can tell whether they are stale
+    private long version;
+    // Last snapshot and the rows changed since, so freeze() only has to rebuild those rows.
+    // Keeping it costs the CSR arrays in addition to the maps, but the caller of freeze()
+    // normally holds on to the same snapshot for its queries anyway
+    private GraphSnapshot lastSnapshot;
+    private BitSet changedOutRows;
+    private BitSet changedInRows;
+
     /**
      * Constructor
      */
     public DirectedGraph() {
-        adjacencyMap = new HashMap<>();
+        wordIds = new HashMap<>();
+        words = new ArrayList<>();
+        adjacency = new ArrayList<>();
+        incoming = new ArrayList<>();
+        outWeightSums = new int[16];
+        inWeightSums = new int[16];
+        changedOutRows = new BitSet();
+        changedInRows = new BitSet();
+    }
+
+    /**
+     * Callback for visiting the edges of a node without copying them
+     */
+    public interface EdgeVisitor {
+        void visit(String word, int weight);
+    }
+
+    /**
+     * Look up the ID of a word, lowercasing it only when the exact form is unknown
+     * @param word Word to look up
+     * @return Node ID, or -1 if the word is not in the graph
+     */
+    public int getNodeId(String word) {
+        Integer id = wordIds.get(word);
+        if (id == null) {
+            id = wordIds.get(word.toLowerCase());
+        }
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Get the word of a node
+     * @param id Node ID
+     * @return Word of the node
+     */
+    public String getWord(int id) {
+        return words.get(id);
+    }
+
+    /**
+     * Get the number of nodes in the graph; node IDs range from 0 to this value - 1
+     * @return Number of nodes
+     */
+    public int getNodeCount() {
+        return words.size();
+    }
+
+    /**
+     * Get the ID of a word, adding it as a new node if necessary
+     * @param word Lowercase word
+     * @return Node ID
+     */
+    private int intern(String word) {
+        Integer id = wordIds.get(word);
+        if (id == null) {
+            id = words.size();
+            wordIds.put(word, id);
+            words.add(word);
+            adjacency.add(new IntIntHashMap());
+            incoming.add(new IntIntHashMap());
+            if (id == outWeightSums.length) {
+                outWeightSums = Arrays.copyOf(outWeightSums, id * 2);
+                inWeightSums = Arrays.copyOf(inWeightSums, id * 2);
+            }
+            version++;
+        }
+        return id;
     }
-    
+
     /**
      * Add a node (word) to the graph
      * @param word The word to add as a node
      */
     public void addNode(String word) {
-        word = word.toLowerCase(); // Convert to lowercase
-        if (!adjacencyMap.containsKey(word)) {
-            adjacencyMap.put(word, new HashMap<>());
-        }
+        intern(word.toLowerCase()); // Convert to lowercase
     }
-    
+
     /**
      * Add an edge from source word to target word, or increase the weight of an existing edge
      * @param fromWord Source word
      * @param toWord Target word
      */
     public void addEdge(String fromWord, String toWord) {
-        fromWord = fromWord.toLowerCase();
-        toWord = toWord.toLowerCase();
-        
+        addEdge(fromWord, toWord, 1);
+    }
+
+    /**
+     * Add an edge from source word to target word, or increase the weight of an existing edge
+     * @param fromWord Source word
+     * @param toWord Target word
+     * @param weight Weight to add to the edge
+     */
+    public void addEdge(String fromWord, String toWord, int weight) {
         // Ensure both words are in the graph
-        addNode(fromWord);
-        addNode(toWord);
-        
-        // Get the adjacency list of fromWord
-        Map<String, Integer> neighbors = adjacencyMap.get(fromWord);
-        
-        // Update edge weight
-        int weight = neighbors.getOrDefault(toWord, 0);
-        neighbors.put(toWord, weight + 1);
-    }
-    
+        int fromId = intern(fromWord.toLowerCase());
+        int toId = intern(toWord.toLowerCase());
+
+        // Update edge weight in both directions
+        adjacency.get(fromId).addTo(toId, weight);
+        incoming.get(toId).addTo(fromId, weight);
+        outWeightSums[fromId] += weight;
+        inWeightSums[toId] += weight;
+        changedOutRows.set(fromId);
+        changedInRows.set(toId);
+        version++;
+    }
+
+    /**
+     * Add all nodes and edges of another graph, summing the weights of shared edges
+     * @param other Graph to merge into this one
+     */
+    public void addAll(DirectedGraph other) {
+        // Translate the IDs of the other graph into IDs of this graph once
+        int[] idMap = new int[other.getNodeCount()];
+        for (int id = 0; id < idMap.length; id++) {
+            idMap[id] = intern(other.words.get(id));
+        }
+        for (int id = 0; id < idMap.length; id++) {
+            int fromId = idMap[id];
+            IntIntHashMap neighbors = adjacency.get(fromId);
+            other.adjacency.get(id).forEach((toId, weight) -> {
+                neighbors.addTo(idMap[toId], weight);
+                incoming.get(idMap[toId]).addTo(fromId, weight);
+                outWeightSums[fromId] += weight;
+                inWeightSums[idMap[toId]] += weight;
+                changedInRows.set(idMap[toId]);
+            });
+            if (!other.adjacency.get(id).isEmpty()) {
+                changedOutRows.set(fromId);
+            }
+        }
+        version++;
+    }
+
+    /**
+     * Get the nodes whose out-edges changed since the last freeze
+     * @return Copy of the set of node IDs
+     */
+    public BitSet getChangedOutRows() {
+        return (BitSet) changedOutRows.clone();
+    }
+
+    /**
+     * Get the modification count of the graph
+     * @return Value that changes whenever a node or edge is added
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Create an immutable compressed-sparse-row snapshot of the current graph.
+     * Both the out-edge and in-edge rows of the snapshot are sorted by node ID.
+     * After a small change only the changed rows are rebuilt; all other rows are
+     * block-copied from the previous snapshot.
+     * @return Snapshot sharing the node IDs of this graph
+     */
+    public GraphSnapshot freeze() {
+        GraphSnapshot snapshot;
+        int n = getNodeCount();
+        if (lastSnapshot != null && isSmallChange(n - lastSnapshot.getNodeCount())) {
+            int[][] out = refreezeRows(lastSnapshot.getOutOffsets(), lastSnapshot.getOutTargets(),
+                    lastSnapshot.getOutWeights(), adjacency, changedOutRows);
+            int[][] in = refreezeRows(lastSnapshot.getInOffsets(), lastSnapshot.getInSources(),
+                    lastSnapshot.getInWeights(), incoming, changedInRows);
+            snapshot = new GraphSnapshot(words.toArray(new String[0]), frozenWordIds(),
+                    out[0], out[1], out[2], in[0], in[1], in[2],
+                    Arrays.copyOf(outWeightSums, n), Arrays.copyOf(inWeightSums, n));
+        } else {
+            snapshot = freezeAll();
+        }
+
+        lastSnapshot = snapshot;
+        changedOutRows.clear();
+        changedInRows.clear();
+        return snapshot;
+    }
+
+    /**
+     * Get a read-only copy of the word -> ID map, copying it again only if words were added
+     */
+    private Map<String, Integer> frozenWordIds() {
+        if (frozenWordIds == null || frozenWordIds.size() != wordIds.size()) {
+            frozenWordIds = Collections.unmodifiableMap(new HashMap<>(wordIds));
+        }
+        return frozenWordIds;
+    }
+
+    /**
+     * Decide whether rebuilding only the changed rows is cheaper than a full freeze
+     */
+    private boolean isSmallChange(int newNodes) {
+        long changedRows = (long) changedOutRows.cardinality() + changedInRows.cardinality() + 2L * newNodes;
+        return changedRows * 8 <= 2L * getNodeCount();
+    }
+
+    /**
+     * Build CSR rows for the current graph from the rows of the previous snapshot,
+     * copying unchanged runs of rows and rebuilding changed or new rows from the maps
+     * @return Offsets, node IDs and weights of the new rows
+     */
+    private static int[][] refreezeRows(int[] oldOffsets, int[] oldIds, int[] oldWeights,
+                                        List<IntIntHashMap> rows, BitSet changed) {
+        int n = rows.size();
+        int oldN = oldOffsets.length - 1;
+        int[] offsets = new int[n + 1];
+        for (int id = 0; id < n; id++) {
+            int length = id < oldN && !changed.get(id) ? oldOffsets[id + 1] - oldOffsets[id] : rows.get(id).size();
+            offsets[id + 1] = offsets[id] + length;
+        }
+
+        int[] ids = new int[offsets[n]];
+        int[] weights = new int[offsets[n]];
+        int id = 0;
+        while (id < n) {
+            if (id < oldN && !changed.get(id)) {
+                // Copy the whole run of unchanged rows at once
+                int end = changed.nextSetBit(id);
+                end = end < 0 || end > oldN ? oldN : end;
+                System.arraycopy(oldIds, oldOffsets[id], ids, offsets[id], oldOffsets[end] - oldOffsets[id]);
+                System.arraycopy(oldWeights, oldOffsets[id], weights, offsets[id], oldOffsets[end] - oldOffsets[id]);
+                id = end;
+            } else {
+                // Rebuild the row from its map, sorted by node ID
+                long[] entries = new long[rows.get(id).size()];
+                int[] count = {0};
+                rows.get(id).forEach((key, weight) -> entries[count[0]++] = ((long) key << 32) | (weight & 0xFFFFFFFFL));
+                Arrays.sort(entries);
+                for (int i = 0; i < entries.length; i++) {
+                    ids[offsets[id] + i] = (int) (entries[i] >>> 32);
+                    weights[offsets[id] + i] = (int) entries[i];
+                }
+                id++;
+            }
+        }
+        return new int[][] {offsets, ids, weights};
+    }
+
+    /**
+     * Build a snapshot of the whole graph with two linear transposes
+     */
+    private GraphSnapshot freezeAll() {
+        int n = getNodeCount();
+
+        // Turn the in-degree of every node into row offsets
+        int[] inOffsets = new int[n + 1];
+        for (int id = 0; id < n; id++) {
+            inOffsets[id + 1] = inOffsets[id] + incoming.get(id).size();
+        }
+
+        // Scatter the edges by target; visiting sources in ID order keeps every in-row sorted
+        int edgeCount = inOffsets[n];
+        int[] inSources = new int[edgeCount];
+        int[] inWeights = new int[edgeCount];
+        int[] next = Arrays.copyOf(inOffsets, n);
+        for (int fromId = 0; fromId < n; fromId++) {
+            int source = fromId;
+            adjacency.get(fromId).forEach((toId, weight) -> {
+                int p = next[toId]++;
+                inSources[p] = source;
+                inWeights[p] = weight;
+            });
+        }
+
+        // Transpose the in-rows back, which yields out-rows sorted by target
+        int[] outOffsets = new int[n + 1];
+        for (int id = 0; id < n; id++) {
+            outOffsets[id + 1] = outOffsets[id] + adjacency.get(id).size();
+        }
+        int[] outTargets = new int[edgeCount];
+        int[] outWeights = new int[edgeCount];
+        System.arraycopy(outOffsets, 0, next, 0, n);
+        for (int toId = 0; toId < n; toId++) {
+            for (int p = inOffsets[toId]; p < inOffsets[toId + 1]; p++) {
+                int q = next[inSources[p]]++;
+                outTargets[q] = toId;
+                outWeights[q] = inWeights[p];
+            }
+        }
+
+        return new GraphSnapshot(words.toArray(new String[0]), frozenWordIds(),
+                outOffsets, outTargets, outWeights, inOffsets, inSources, inWeights,
+                Arrays.copyOf(outWeightSums, n), Arrays.copyOf(inWeightSums, n));
+    }
+
     /**
      * Get all nodes (words) in the graph
      * @return Set of all nodes
      */
     public Set<String> getNodes() {
-        return adjacencyMap.keySet();
+        return Collections.unmodifiableSet(wordIds.keySet());
     }
-    
+
     /**
      * Check if the graph contains the specified node (word)
      * @param word The word to check
      * @return true if the graph contains the word, false otherwise
      */
     public boolean containsNode(String word) {
-        return adjacencyMap.containsKey(word.toLowerCase());
+        return getNodeId(word) >= 0;
     }
-    
+
     /**
      * Get all edges from a node
      * @param fromWord Source node
-     * @return Map of all edges from the node, mapped as <target node, weight>
+     * @return Read-only live view of all edges from the node, mapped as <target node, weight>
      */
     public Map<String, Integer> getEdges(String fromWord) {
-        fromWord = fromWord.toLowerCase();
-        if (!adjacencyMap.containsKey(fromWord)) {
-            return new HashMap<>();
+        int fromId = getNodeId(fromWord);
+        if (fromId < 0) {
+            return Collections.emptyMap();
+        }
+        return new EdgeMapView(adjacency.get(fromId));
+    }
+
+    /**
+     * Visit all edges from a node without copying them
+     * @param fromWord Source node
+     * @param visitor Called with each target node and edge weight
+     */
+    public void forEachEdge(String fromWord, EdgeVisitor visitor) {
+        int fromId = getNodeId(fromWord);
+        if (fromId >= 0) {
+            adjacency.get(fromId).forEach((toId, weight) -> visitor.visit(words.get(toId), weight));
         }
-        return new HashMap<>(adjacencyMap.get(fromWord));
     }
-    
+
+    /**
+     * Visit all edges from a node without copying them
+     * @param fromId Source node ID
+     * @param visitor Called with each target node ID and edge weight
+     */
+    public void forEachEdge(int fromId, IntIntHashMap.EntryConsumer visitor) {
+        adjacency.get(fromId).forEach(visitor);
+    }
+
+    /**
+     * Visit all edges pointing to a node without copying them
+     * @param toId Target node ID
+     * @param visitor Called with each source node ID and edge weight
+     */
+    public void forEachIncomingEdge(int toId, IntIntHashMap.EntryConsumer visitor) {
+        incoming.get(toId).forEach(visitor);
+    }
+
+    /**
+     * Get the number of edges from a node
+     * @param id Node ID
+     * @return Out-degree
+     */
+    public int getOutDegree(int id) {
+        return adjacency.get(id).size();
+    }
+
+    /**
+     * Get the number of edges pointing to a node
+     * @param id Node ID
+     * @return In-degree
+     */
+    public int getInDegree(int id) {
+        return incoming.get(id).size();
+    }
+
+    /**
+     * Get the total weight of the edges from a node
+     * @param id Node ID
+     * @return Sum of out-edge weights, kept up to date by addEdge
+     */
+    public int getOutWeightSum(int id) {
+        return outWeightSums[id];
+    }
+
+    /**
+     * Get the total weight of the edges pointing to a node
+     * @param id Node ID
+     * @return Sum of in-edge weights, kept up to date by addEdge
+     */
+    public int getInWeightSum(int id) {
+        return inWeightSums[id];
+    }
+
     /**
      * Get the weight of an edge between two nodes
      * @param fromWord Source node
@@ -84,36 +421,112 @@ public class DirectedGraph {
      * @return Weight of the edge, or 0 if the edge doesn't exist
      */
     public int getEdgeWeight(String fromWord, String toWord) {
-        fromWord = fromWord.toLowerCase();
-        toWord = toWord.toLowerCase();
-        
-        if (!adjacencyMap.containsKey(fromWord)) {
+        int fromId = getNodeId(fromWord);
+        int toId = getNodeId(toWord);
+        if (fromId < 0 || toId < 0) {
             return 0;
         }
-        
-        Map<String, Integer> neighbors = adjacencyMap.get(fromWord);
-        return neighbors.getOrDefault(toWord, 0);
+        return getEdgeWeight(fromId, toId);
+    }
+
+    /**
+     * Get the weight of an edge between two nodes
+     * @param fromId Source node ID
+     * @param toId Target node ID
+     * @return Weight of the edge, or 0 if the edge doesn't exist
+     */
+    public int getEdgeWeight(int fromId, int toId) {
+        return adjacency.get(fromId).getOrDefault(toId, 0);
     }
-    
+
     /**
      * Get all nodes that point to a specified node
      * @param toWord Target node
-     * @return Map of all nodes that point to the target node, mapped as <source node, weight>
+     * @return Read-only live view of all nodes that point to the target node, mapped as <source node, weight>
      */
     public Map<String, Integer> getIncomingEdges(String toWord) {
-        toWord = toWord.toLowerCase();
-        Map<String, Integer> incomingEdges = new HashMap<>();
-        
-        for (String fromWord : adjacencyMap.keySet()) {
-            int weight = getEdgeWeight(fromWord, toWord);
-            if (weight > 0) {
-                incomingEdges.put(fromWord, weight);
+        int toId = getNodeId(toWord);
+        if (toId < 0) {
+            return Collections.emptyMap();
+        }
+
+        // View the reverse index, so the cost depends on the in-degree only
+        return new EdgeMapView(incoming.get(toId));
+    }
+
+    /**
+     * Read-only map view over one row of the adjacency or reverse index, translating IDs to words
+     */
+    private class EdgeMapView extends AbstractMap<String, Integer> {
+        private final IntIntHashMap edges;
+
+        EdgeMapView(IntIntHashMap edges) {
+            this.edges = edges;
+        }
+
+        @Override
+        public int size() {
+            return edges.size();
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public Integer get(Object key) {
+            if (!(key instanceof String)) {
+                return null;
             }
+            int id = getNodeId((String) key);
+            if (id < 0 || !edges.containsKey(id)) {
+                return null;
+            }
+            return edges.getOrDefault(id, 0);
+        }
+
+        @Override
+        public Set<Map.Entry<String, Integer>> entrySet() {
+            return new AbstractSet<Map.Entry<String, Integer>>() {
+                @Override
+                public int size() {
+                    return edges.size();
+                }
+
+                @Override
+                public Iterator<Map.Entry<String, Integer>> iterator() {
+                    return new Iterator<Map.Entry<String, Integer>>() {
+                        private int slot = nextUsedSlot(0);
+
+                        private int nextUsedSlot(int from) {
+                            while (from < edges.capacity() && edges.keyAt(from) < 0) {
+                                from++;
+                            }
+                            return from;
+                        }
+
+                        @Override
+                        public boolean hasNext() {
+                            return slot < edges.capacity();
+                        }
+
+                        @Override
+                        public Map.Entry<String, Integer> next() {
+                            if (!hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+                            Map.Entry<String, Integer> entry = new AbstractMap.SimpleImmutableEntry<>(
+                                    words.get(edges.keyAt(slot)), edges.valueAt(slot));
+                            slot = nextUsedSlot(slot + 1);
+                            return entry;
+                        }
+                    };
+                }
+            };
         }
-        
-        return incomingEdges;
     }
-    
+
     /**
      * Get string representation of the graph
      * @return Graph description string
@@ -122,26 +535,26 @@ public class DirectedGraph {
     public String toString() {
         StringBuilder sb = new StringBuilder();
         sb.append("Directed Graph Structure:\n");
-        
-        for (String fromWord : adjacencyMap.keySet()) {
+
+        for (String fromWord : wordIds.keySet()) {
             sb.append(fromWord).append(" -> ");
-            
-            Map<String, Integer> neighbors = adjacencyMap.get(fromWord);
+
+            IntIntHashMap neighbors = adjacency.get(wordIds.get(fromWord));
             if (neighbors.isEmpty()) {
                 sb.append("[No outgoing edges]");
             } else {
-                boolean first = true;
-                for (Map.Entry<String, Integer> entry : neighbors.entrySet()) {
-                    if (!first) {
+                boolean[] first = {true};
+                neighbors.forEach((toId, weight) -> {
+                    if (!first[0]) {
                         sb.append(", ");
                     }
-                    sb.append(entry.getKey()).append("(weight: ").append(entry.getValue()).append(")");
-                    first = false;
-                }
+                    sb.append(words.get(toId)).append("(weight: ").append(weight).append(")");
+                    first[0] = false;
+                });
             }
             sb.append("\n");
         }
-        
+
         return sb.toString();
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,226 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.Arrays;
+
+/**
+ * Versioned binary on-disk format for graph snapshots.
+ * The file holds the node dictionary followed by the CSR edge arrays of a GraphSnapshot,
+ * so loading is a memory-mapped bulk copy with no tokenizing, hashing of edges or sorting.
+ * The query code works on int[] arrays, so the arrays are still copied to the heap, the
+ * words decoded and the word index rebuilt: loading is a linear pass over the file rather
+ * than independent of its size. The file is checked for consistency while it is copied:
+ * offsets, node IDs and weights must be in range, out-rows sorted and in-rows their transpose.
+ *
+ * Layout (big-endian):
+ *   int magic, int format version, int node count, int edge count, long dictionary size
+ *   int[nodeCount + 1]  start of every word in the dictionary
+ *   byte[dictionary size] UTF-8 words, padded to a multiple of 4 bytes
+ *   int[nodeCount + 1] out offsets, int[edgeCount] out targets, int[edgeCount] out weights
+ *   int[nodeCount + 1] in offsets,  int[edgeCount] in sources, int[edgeCount] in weights
+ */
+public class GraphFile {
+    public static final String EXTENSION = ".wgraph";
+
+    private static final int MAGIC = 0x57475246; // "WGRF"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 24;
+
+    private GraphFile() {
+    }
+
+    /**
+     * Save a graph snapshot
+     * @param snapshot Snapshot to save
+     * @param filePath Output file path
+     * @throws IOException File writing exception
+     */
+    public static void save(GraphSnapshot snapshot, String filePath) throws IOException {
+        int n = snapshot.getNodeCount();
+        int[] wordOffsets = new int[n + 1];
+        byte[][] encodedWords = new byte[n][];
+        for (int id = 0; id < n; id++) {
+            encodedWords[id] = snapshot.getWord(id).getBytes(StandardCharsets.UTF_8);
+            wordOffsets[id + 1] = wordOffsets[id] + encodedWords[id].length;
+        }
+
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(filePath), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(n);
+            out.writeInt(snapshot.getEdgeCount());
+            out.writeLong(wordOffsets[n]);
+
+            writeInts(out, wordOffsets);
+            for (byte[] word : encodedWords) {
+                out.write(word);
+            }
+            out.write(new byte[padding(wordOffsets[n])]);
+
+            writeInts(out, snapshot.getOutOffsets());
+            writeInts(out, snapshot.getOutTargets());
+            writeInts(out, snapshot.getOutWeights());
+            writeInts(out, snapshot.getInOffsets());
+            writeInts(out, snapshot.getInSources());
+            writeInts(out, snapshot.getInWeights());
+        }
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    private static int padding(long size) {
+        return (int) ((4 - size % 4) % 4);
+    }
+
+    /**
+     * Load a graph snapshot by memory-mapping the file
+     * @param filePath Input file path
+     * @return Loaded snapshot
+     * @throws IOException File reading exception, or if the file is not a valid graph file
+     */
+    public static GraphSnapshot load(String filePath) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) {
+                throw new IOException("Not a graph file: " + filePath);
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if (header.getInt() != MAGIC) {
+                throw new IOException("Not a graph file: " + filePath);
+            }
+            int version = header.getInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported graph file version " + version + ": " + filePath);
+            }
+            int n = header.getInt();
+            int edgeCount = header.getInt();
+            long dictionarySize = header.getLong();
+            if (n < 0 || n == Integer.MAX_VALUE || edgeCount < 0
+                    || dictionarySize < 0 || dictionarySize > Integer.MAX_VALUE) {
+                throw new IOException("Corrupt graph file header: " + filePath);
+            }
+
+            long position = HEADER_SIZE;
+            int[] wordOffsets = readInts(channel, position, n + 1);
+            checkOffsets(wordOffsets, (int) dictionarySize, "word");
+            position += 4L * (n + 1);
+
+            ByteBuffer dictionary = map(channel, position, dictionarySize);
+            String[] words = new String[n];
+            byte[] bytes = new byte[64];
+            for (int id = 0; id < n; id++) {
+                int length = wordOffsets[id + 1] - wordOffsets[id];
+                if (length > bytes.length) {
+                    bytes = new byte[length];
+                }
+                dictionary.position(wordOffsets[id]);
+                dictionary.get(bytes, 0, length);
+                words[id] = new String(bytes, 0, length, StandardCharsets.UTF_8);
+            }
+            position += dictionarySize + padding(dictionarySize);
+
+            int[] outOffsets = readInts(channel, position, n + 1);
+            checkOffsets(outOffsets, edgeCount, "out-edge");
+            position += 4L * (n + 1);
+            int[] outTargets = readInts(channel, position, edgeCount);
+            checkRange(outTargets, 0, n - 1, "out-edge target");
+            position += 4L * edgeCount;
+            int[] outWeights = readInts(channel, position, edgeCount);
+            checkRange(outWeights, 1, Integer.MAX_VALUE, "out-edge weight");
+            position += 4L * edgeCount;
+            int[] inOffsets = readInts(channel, position, n + 1);
+            checkOffsets(inOffsets, edgeCount, "in-edge");
+            position += 4L * (n + 1);
+            int[] inSources = readInts(channel, position, edgeCount);
+            checkRange(inSources, 0, n - 1, "in-edge source");
+            position += 4L * edgeCount;
+            int[] inWeights = readInts(channel, position, edgeCount);
+            checkRange(inWeights, 1, Integer.MAX_VALUE, "in-edge weight");
+            checkSortedRows(outOffsets, outTargets);
+            checkTranspose(outOffsets, outTargets, outWeights, inOffsets, inSources, inWeights);
+
+            return new GraphSnapshot(words, outOffsets, outTargets, outWeights, inOffsets, inSources, inWeights);
+        }
+    }
+
+    /**
+     * Check that offsets start at 0, never decrease and end at the size of the data they index
+     */
+    private static void checkOffsets(int[] offsets, int end, String name) throws IOException {
+        if (offsets[0] != 0 || offsets[offsets.length - 1] != end) {
+            throw new IOException("Corrupt graph file: " + name + " offsets don't cover 0.." + end);
+        }
+        for (int i = 1; i < offsets.length; i++) {
+            if (offsets[i] < offsets[i - 1]) {
+                throw new IOException("Corrupt graph file: " + name + " offsets decrease at " + i);
+            }
+        }
+    }
+
+    /**
+     * Check that every value lies in [min, max]
+     */
+    private static void checkRange(int[] values, int min, int max, String name) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] < min || values[i] > max) {
+                throw new IOException("Corrupt graph file: " + name + " " + values[i] + " at " + i + " out of range");
+            }
+        }
+    }
+
+    /**
+     * Check that the targets of every out-row are strictly increasing, as the binary searches
+     * and row intersections of the snapshot require
+     */
+    private static void checkSortedRows(int[] offsets, int[] ids) throws IOException {
+        for (int node = 0; node < offsets.length - 1; node++) {
+            for (int p = offsets[node] + 1; p < offsets[node + 1]; p++) {
+                if (ids[p] <= ids[p - 1]) {
+                    throw new IOException("Corrupt graph file: out-edges of node " + node + " are not sorted");
+                }
+            }
+        }
+    }
+
+    /**
+     * Check that the in-rows hold exactly the out-edges, each row sorted by source.
+     * Visiting the out-edges by ascending source fills every in-row in source order, so
+     * each in-edge must be the next one of its row.
+     */
+    private static void checkTranspose(int[] outOffsets, int[] outTargets, int[] outWeights,
+                                       int[] inOffsets, int[] inSources, int[] inWeights) throws IOException {
+        int n = outOffsets.length - 1;
+        int[] next = Arrays.copyOf(inOffsets, n);
+        for (int source = 0; source < n; source++) {
+            for (int p = outOffsets[source]; p < outOffsets[source + 1]; p++) {
+                int target = outTargets[p];
+                int q = next[target]++;
+                if (q >= inOffsets[target + 1] || inSources[q] != source || inWeights[q] != outWeights[p]) {
+                    throw new IOException("Corrupt graph file: in-edges don't match the out-edge "
+                            + source + " -> " + target);
+                }
+            }
+        }
+    }
+
+    private static ByteBuffer map(FileChannel channel, long position, long size) throws IOException {
+        if (position + size > channel.size()) {
+            throw new IOException("Graph file is truncated");
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+    }
+
+    private static int[] readInts(FileChannel channel, long position, int count) throws IOException {
+        IntBuffer buffer = map(channel, position, 4L * count).asIntBuffer();
+        int[] values = new int[count];
+        buffer.get(values);
+        return values;
+    }
+}
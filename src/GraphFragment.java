@@ -0,0 +1,101 @@
+/**
+ * Partial edge-count table built from one contiguous piece of a corpus.
+ * The first and last word are kept so that the word pair spanning the
+ * boundary between two neighbouring fragments can be joined up again.
+ */
+public class GraphFragment {
+    private DirectedGraph graph;
+    private String firstWord;
+    private String lastWord;
+    private boolean linked = true; // false if the next word must not be linked to the last word
+
+    /**
+     * Constructor
+     */
+    public GraphFragment() {
+        graph = new DirectedGraph();
+    }
+
+    /**
+     * Add the next word of this fragment, linking it to the previous one
+     * @param word Lowercase word
+     */
+    public void addWord(String word) {
+        if (lastWord == null) {
+            firstWord = word;
+        } else if (linked) {
+            graph.addEdge(lastWord, word);
+        }
+        linked = true;
+        lastWord = word;
+    }
+
+    /**
+     * Start a new piece of text, such as the next file of a corpus, whose first word
+     * is not linked to the last word added so far
+     */
+    public void breakLink() {
+        linked = false;
+    }
+
+    /**
+     * Append the fragment that directly follows this one in the corpus
+     * @param next Following fragment
+     */
+    public void append(GraphFragment next) {
+        if (next.firstWord == null) {
+            return;
+        }
+        if (lastWord == null) {
+            // Nothing collected yet, so the following table can be taken over as it is
+            firstWord = next.firstWord;
+            graph = next.graph;
+        } else {
+            graph.addEdge(lastWord, next.firstWord);
+            graph.addAll(next.graph);
+        }
+        lastWord = next.lastWord;
+    }
+
+    /**
+     * Add the edges of a fragment that follows this one without linking the two,
+     * for example the next file of a corpus whose file boundaries should not create edges
+     * @param next Following fragment
+     */
+    public void merge(GraphFragment next) {
+        if (next.firstWord == null) {
+            return;
+        }
+        if (lastWord == null) {
+            firstWord = next.firstWord;
+            graph = next.graph;
+        } else {
+            graph.addAll(next.graph);
+        }
+        lastWord = next.lastWord;
+    }
+
+    /**
+     * Get the edges collected from this fragment
+     * @return Partial graph
+     */
+    public DirectedGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Get the first word of this fragment
+     * @return First word, or null if the fragment contains no words
+     */
+    public String getFirstWord() {
+        return firstWord;
+    }
+
+    /**
+     * Get the last word of this fragment
+     * @return Last word, or null if the fragment contains no words
+     */
+    public String getLastWord() {
+        return lastWord;
+    }
+}
@@ -0,0 +1,228 @@
+import java.util.*;
+
+/**
+ * Immutable compressed-sparse-row (CSR) snapshot of a DirectedGraph.
+ * Out-edges of node i are stored at positions outOffsets[i] .. outOffsets[i + 1] - 1
+ * of the target and weight arrays, sorted by target ID; in-edges are stored the
+ * same way in a transposed copy, sorted by source ID. Node IDs are the IDs of the
+ * graph the snapshot was taken from. The arrays returned by the getters are shared
+ * and must not be modified.
+ */
+public class GraphSnapshot {
+    private final String[] words;
+    private final Map<String, Integer> wordIds;
+
+    // Out-edges in CSR form
+    private final int[] outOffsets;
+    private final int[] outTargets;
+    private final int[] outWeights;
+
+    // In-edges in CSR form (transpose of the out-edges)
+    private final int[] inOffsets;
+    private final int[] inSources;
+    private final int[] inWeights;
+
+    // Total weight of the out-edges and in-edges of each node
+    private final int[] outWeightSums;
+    private final int[] inWeightSums;
+
+    /**
+     * Constructor
+     * @param words Word of every node, indexed by node ID
+     * @param outOffsets Start of each node's out-edges, with one extra entry for the end
+     * @param outTargets Target IDs of the out-edges
+     * @param outWeights Weights of the out-edges
+     * @param inOffsets Start of each node's in-edges, with one extra entry for the end
+     * @param inSources Source IDs of the in-edges
+     * @param inWeights Weights of the in-edges
+     */
+    GraphSnapshot(String[] words,
+                  int[] outOffsets, int[] outTargets, int[] outWeights,
+                  int[] inOffsets, int[] inSources, int[] inWeights) {
+        this(words, indexWords(words), outOffsets, outTargets, outWeights, inOffsets, inSources, inWeights,
+                sumRows(outOffsets, outWeights), sumRows(inOffsets, inWeights));
+    }
+
+    /**
+     * Constructor
+     * @param words Word of every node, indexed by node ID
+     * @param wordIds Map from word to node ID of every word of the snapshot; must not change afterwards
+     * @param outOffsets Start of each node's out-edges, with one extra entry for the end
+     * @param outTargets Target IDs of the out-edges
+     * @param outWeights Weights of the out-edges
+     * @param inOffsets Start of each node's in-edges, with one extra entry for the end
+     * @param inSources Source IDs of the in-edges
+     * @param inWeights Weights of the in-edges
+     * @param outWeightSums Total out-edge weight of each node
+     * @param inWeightSums Total in-edge weight of each node
+     */
+    GraphSnapshot(String[] words, Map<String, Integer> wordIds,
+                  int[] outOffsets, int[] outTargets, int[] outWeights,
+                  int[] inOffsets, int[] inSources, int[] inWeights,
+                  int[] outWeightSums, int[] inWeightSums) {
+        this.words = words;
+        this.wordIds = wordIds;
+        this.outOffsets = outOffsets;
+        this.outTargets = outTargets;
+        this.outWeights = outWeights;
+        this.inOffsets = inOffsets;
+        this.inSources = inSources;
+        this.inWeights = inWeights;
+        this.outWeightSums = outWeightSums;
+        this.inWeightSums = inWeightSums;
+    }
+
+    private static Map<String, Integer> indexWords(String[] words) {
+        Map<String, Integer> wordIds = new HashMap<>(words.length * 4 / 3 + 1);
+        for (int id = 0; id < words.length; id++) {
+            wordIds.put(words[id], id);
+        }
+        return wordIds;
+    }
+
+    private static int[] sumRows(int[] offsets, int[] weights) {
+        int[] sums = new int[offsets.length - 1];
+        for (int id = 0; id < sums.length; id++) {
+            int sum = 0;
+            for (int p = offsets[id]; p < offsets[id + 1]; p++) {
+                sum += weights[p];
+            }
+            sums[id] = sum;
+        }
+        return sums;
+    }
+
+    /**
+     * Create a mutable graph with the same node IDs and edges as this snapshot
+     * @return New directed graph
+     */
+    public DirectedGraph thaw() {
+        DirectedGraph graph = new DirectedGraph();
+        for (String word : words) {
+            graph.addNode(word);
+        }
+        for (int id = 0; id < words.length; id++) {
+            for (int p = outOffsets[id]; p < outOffsets[id + 1]; p++) {
+                graph.addEdge(words[id], words[outTargets[p]], outWeights[p]);
+            }
+        }
+        return graph;
+    }
+
+    /**
+     * Get the number of nodes
+     * @return Number of nodes
+     */
+    public int getNodeCount() {
+        return words.length;
+    }
+
+    /**
+     * Get the number of distinct edges
+     * @return Number of edges
+     */
+    public int getEdgeCount() {
+        return outTargets.length;
+    }
+
+    /**
+     * Look up the ID of a word
+     * @param word Word to look up
+     * @return Node ID, or -1 if the word is not in the snapshot
+     */
+    public int getNodeId(String word) {
+        Integer id = wordIds.get(word);
+        if (id == null) {
+            id = wordIds.get(word.toLowerCase());
+        }
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Get the word of a node
+     * @param id Node ID
+     * @return Word of the node
+     */
+    public String getWord(int id) {
+        return words[id];
+    }
+
+    /**
+     * Get the weight of an edge by binary search in the sorted out-edges of the source
+     * @param fromId Source node ID
+     * @param toId Target node ID
+     * @return Weight of the edge, or 0 if the edge doesn't exist
+     */
+    public int getEdgeWeight(int fromId, int toId) {
+        int p = Arrays.binarySearch(outTargets, outOffsets[fromId], outOffsets[fromId + 1], toId);
+        return p >= 0 ? outWeights[p] : 0;
+    }
+
+    /**
+     * Get the number of out-edges of a node
+     * @param id Node ID
+     * @return Out-degree
+     */
+    public int getOutDegree(int id) {
+        return outOffsets[id + 1] - outOffsets[id];
+    }
+
+    /**
+     * Get the number of in-edges of a node
+     * @param id Node ID
+     * @return In-degree
+     */
+    public int getInDegree(int id) {
+        return inOffsets[id + 1] - inOffsets[id];
+    }
+
+    /**
+     * Get the total weight of the out-edges of a node
+     * @param id Node ID
+     * @return Sum of out-edge weights
+     */
+    public int getOutWeightSum(int id) {
+        return outWeightSums[id];
+    }
+
+    /**
+     * Get the total weight of the in-edges of a node
+     * @param id Node ID
+     * @return Sum of in-edge weights
+     */
+    public int getInWeightSum(int id) {
+        return inWeightSums[id];
+    }
+
+    public int[] getOutOffsets() {
+        return outOffsets;
+    }
+
+    public int[] getOutTargets() {
+        return outTargets;
+    }
+
+    public int[] getOutWeights() {
+        return outWeights;
+    }
+
+    public int[] getInOffsets() {
+        return inOffsets;
+    }
+
+    public int[] getInSources() {
+        return inSources;
+    }
+
+    public int[] getInWeights() {
+        return inWeights;
+    }
+
+    public int[] getOutWeightSums() {
+        return outWeightSums;
+    }
+
+    public int[] getInWeightSums() {
+        return inWeightSums;
+    }
+}
@@ -22,13 +22,9 @@ public class GraphVisualizer {
         
         // 添加所有边
         for (String fromNode : graph.getNodes()) {
-            Map<String, Integer> edges = graph.getEdges(fromNode);
-            for (Map.Entry<String, Integer> edge : edges.entrySet()) {
-                String toNode = edge.getKey();
-                int weight = edge.getValue();
+            graph.forEachEdge(fromNode, (toNode, weight) ->
                 dot.append(String.format("    \"%s\" -> \"%s\" [label=\"%d\"];\n", 
-                    fromNode, toNode, weight));
-            }
+                    fromNode, toNode, weight)));
         }
         
         dot.append("}");
@@ -52,11 +48,7 @@ public class GraphVisualizer {
         
         // 添加所有边，路径中的边用红色
         for (String fromNode : graph.getNodes()) {
-            Map<String, Integer> edges = graph.getEdges(fromNode);
-            for (Map.Entry<String, Integer> edge : edges.entrySet()) {
-                String toNode = edge.getKey();
-                int weight = edge.getValue();
-                
+            graph.forEachEdge(fromNode, (toNode, weight) -> {
                 // 检查边是否在路径中
                 boolean isPathEdge = false;
                 for (int i = 0; i < path.size() - 1; i++) {
@@ -71,7 +63,7 @@ public class GraphVisualizer {
                 String penwidth = isPathEdge ? "2.0" : "1.0";
                 dot.append(String.format("    \"%s\" -> \"%s\" [label=\"%d\",color=%s,penwidth=%s];\n", 
                     fromNode, toNode, weight, color, penwidth));
-            }
+            });
         }
         
         dot.append("}");
@@ -81,7 +73,7 @@ public class GraphVisualizer {
     /**
      * 生成带多条高亮路径的DOT语言描述
      */
-    private static String generateDotStringWithMultiplePaths(DirectedGraph graph, List<List<String>> paths) {
+    private static String generateDotStringWithMultiplePaths(GraphSnapshot snapshot, List<List<String>> paths) {
         StringBuilder dot = new StringBuilder();
         dot.append("digraph G {\n");
         dot.append("    node [style=filled,fillcolor=lightgray];\n");
@@ -91,7 +83,9 @@ public class GraphVisualizer {
         String[] colors = {"red", "blue", "green", "orange", "purple", "cyan", "brown", "pink"};
         
         // 添加所有节点
-        for (String node : graph.getNodes()) {
+        int n = snapshot.getNodeCount();
+        for (int id = 0; id < n; id++) {
+            String node = snapshot.getWord(id);
             // 检查节点是否在任何路径中
             String color = "lightgray";
             for (int i = 0; i < paths.size(); i++) {
@@ -105,12 +99,14 @@ public class GraphVisualizer {
         }
         
         // 添加所有边
-        for (String fromNode : graph.getNodes()) {
-            Map<String, Integer> edges = graph.getEdges(fromNode);
-            for (Map.Entry<String, Integer> edge : edges.entrySet()) {
-                String toNode = edge.getKey();
-                int weight = edge.getValue();
-                
+        int[] offsets = snapshot.getOutOffsets();
+        int[] targets = snapshot.getOutTargets();
+        int[] weights = snapshot.getOutWeights();
+        for (int fromId = 0; fromId < n; fromId++) {
+            String fromNode = snapshot.getWord(fromId);
+            for (int p = offsets[fromId]; p < offsets[fromId + 1]; p++) {
+                String toNode = snapshot.getWord(targets[p]);
+                int weight = weights[p];
                 // 检查边是否在任何路径中
                 String color = "black";
                 String penwidth = "1.0";
@@ -196,8 +192,8 @@ public class GraphVisualizer {
     /**
      * 可视化带多条高亮路径的有向图
      */
-    public static void visualizeMultiplePaths(DirectedGraph graph, List<List<String>> paths, String outputPath) {
-        String dot = generateDotStringWithMultiplePaths(graph, paths);
+    public static void visualizeMultiplePaths(GraphSnapshot snapshot, List<List<String>> paths, String outputPath) {
+        String dot = generateDotStringWithMultiplePaths(snapshot, paths);
         generateImage(dot, outputPath);
     }
 } 
\ No newline at end of file
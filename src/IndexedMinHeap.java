@@ -0,0 +1,134 @@
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of node IDs keyed by double priorities, with decrease-key.
+ * The heap position of every node is tracked, so a node is in the heap at most once
+ * and lowering its key moves it up in place instead of adding a stale duplicate.
+ * Equal keys are ordered by node ID, so the poll order is deterministic.
+ */
+public class IndexedMinHeap {
+    private final int[] heap;
+    private final int[] positions; // Position of every node in the heap, -1 if absent
+    private final double[] keys;
+    private int size;
+
+    /**
+     * Constructor
+     * @param capacity Number of nodes; IDs must be below this
+     */
+    public IndexedMinHeap(int capacity) {
+        heap = new int[capacity];
+        positions = new int[capacity];
+        keys = new double[capacity];
+        Arrays.fill(positions, -1);
+    }
+
+    /**
+     * Check whether the heap is empty
+     * @return true if no node is in the heap
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Check whether a node is in the heap
+     * @param id Node ID
+     * @return true if the node is in the heap
+     */
+    public boolean contains(int id) {
+        return positions[id] >= 0;
+    }
+
+    /**
+     * Get the smallest key without removing its node
+     * @return Smallest key, or positive infinity if the heap is empty
+     */
+    public double peekKey() {
+        return size == 0 ? Double.POSITIVE_INFINITY : keys[heap[0]];
+    }
+
+    /**
+     * Insert a node, or lower its key if it is already in the heap with a larger key
+     * @param id Node ID
+     * @param key Priority
+     */
+    public void insertOrDecrease(int id, double key) {
+        int position = positions[id];
+        if (position < 0) {
+            position = size++;
+            heap[position] = id;
+            positions[id] = position;
+        } else if (key >= keys[id]) {
+            return;
+        }
+        keys[id] = key;
+        siftUp(position);
+    }
+
+    /**
+     * Remove the node with the smallest key
+     * @return Node ID
+     */
+    public int poll() {
+        int top = heap[0];
+        positions[top] = -1;
+        size--;
+        if (size > 0) {
+            heap[0] = heap[size];
+            positions[heap[0]] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    /**
+     * Remove all nodes, in time proportional to the number of nodes in the heap
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            positions[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    private boolean less(int a, int b) {
+        return keys[a] < keys[b] || (keys[a] == keys[b] && a < b);
+    }
+
+    private void siftUp(int position) {
+        int id = heap[position];
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (!less(id, heap[parent])) {
+                break;
+            }
+            heap[position] = heap[parent];
+            positions[heap[position]] = position;
+            position = parent;
+        }
+        heap[position] = id;
+        positions[id] = position;
+    }
+
+    private void siftDown(int position) {
+        int id = heap[position];
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && less(heap[child + 1], heap[child])) {
+                child++;
+            }
+            if (!less(heap[child], id)) {
+                break;
+            }
+            heap[position] = heap[child];
+            positions[heap[position]] = position;
+            position = child;
+        }
+        heap[position] = id;
+        positions[id] = position;
+    }
+}
@@ -0,0 +1,190 @@
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from non-negative int keys to int values.
+ * Keys and values are kept in two parallel primitive arrays, so an entry costs
+ * two ints instead of a HashMap.Node with a boxed key and value.
+ */
+public class IntIntHashMap {
+    private static final int EMPTY = -1; // Marks an unused slot; keys must therefore be non-negative
+    private static final int DEFAULT_CAPACITY = 4;
+
+    private int[] keys;
+    private int[] values;
+    private int size;
+
+    /**
+     * Callback for iterating over the entries of the map
+     */
+    public interface EntryConsumer {
+        void accept(int key, int value);
+    }
+
+    /**
+     * Constructor
+     */
+    public IntIntHashMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor
+     * @param expectedSize Number of entries the map should hold without resizing
+     */
+    public IntIntHashMap(int expectedSize) {
+        int capacity = DEFAULT_CAPACITY;
+        while (capacity * 3 < expectedSize * 4) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Find the slot holding a key, or the empty slot where it would be inserted
+     */
+    private int slotOf(int key) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Get the value stored for a key
+     * @param key Key to look up
+     * @param defaultValue Value returned when the key is absent
+     * @return Stored value, or defaultValue
+     */
+    public int getOrDefault(int key, int defaultValue) {
+        int slot = slotOf(key);
+        return keys[slot] == EMPTY ? defaultValue : values[slot];
+    }
+
+    /**
+     * Check whether the map contains a key
+     * @param key Key to check
+     * @return true if the key is present
+     */
+    public boolean containsKey(int key) {
+        return keys[slotOf(key)] != EMPTY;
+    }
+
+    /**
+     * Store a value for a key, replacing any previous value
+     * @param key Non-negative key
+     * @param value Value to store
+     */
+    public void put(int key, int value) {
+        int slot = slotOf(key);
+        if (keys[slot] == EMPTY) {
+            slot = insert(key, slot);
+        }
+        values[slot] = value;
+    }
+
+    /**
+     * Add a delta to the value of a key, treating an absent key as 0
+     * @param key Non-negative key
+     * @param delta Amount to add
+     * @return New value for the key
+     */
+    public int addTo(int key, int delta) {
+        int slot = slotOf(key);
+        if (keys[slot] == EMPTY) {
+            slot = insert(key, slot);
+        }
+        values[slot] += delta;
+        return values[slot];
+    }
+
+    private int insert(int key, int slot) {
+        if ((size + 1) * 4 > keys.length * 3) {
+            rehash(keys.length << 1);
+            slot = slotOf(key);
+        }
+        keys[slot] = key;
+        values[slot] = 0;
+        size++;
+        return slot;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slotOf(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Get the number of entries
+     * @return Number of entries
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Check whether the map is empty
+     * @return true if the map has no entries
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Get the number of slots, for iterating with keyAt and valueAt
+     * @return Slot count
+     */
+    public int capacity() {
+        return keys.length;
+    }
+
+    /**
+     * Get the key stored in a slot
+     * @param slot Slot index, from 0 to capacity() - 1
+     * @return Key, or -1 if the slot is unused
+     */
+    public int keyAt(int slot) {
+        return keys[slot];
+    }
+
+    /**
+     * Get the value stored in a slot
+     * @param slot Slot index of a used slot
+     * @return Value
+     */
+    public int valueAt(int slot) {
+        return values[slot];
+    }
+
+    /**
+     * Call the consumer for every entry, without allocating
+     * @param consumer Entry callback
+     */
+    public void forEach(EntryConsumer consumer) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                consumer.accept(keys[i], values[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,270 @@
+import java.util.*;
+
+/**
+ * Simple paths between two nodes in order of increasing length, enumerated lazily with
+ * Yen's algorithm and edge cost 1 / weight.
+ * Every returned path is the cheapest candidate found so far. Its spur paths, which leave it
+ * at one node while avoiding the nodes before that node and the edges taken there by earlier
+ * paths with the same prefix, become new candidates. Spurs are generated only when the next
+ * path is requested, and only from the node where the path left the path it was spurred from
+ * (Lawler's refinement), so K paths cost at most K rounds of spur searches however many paths
+ * exist. Each spur search is an A* search guided by the distance to the target in the full
+ * graph, computed once by a backward Dijkstra, so it stays in the corridor to the target.
+ */
+public class KShortestPaths implements Iterator<List<String>> {
+    private final GraphSnapshot snapshot;
+    private final int target;
+    private final double[] remaining; // Distance of every node to the target, ignoring exclusions
+
+    private final List<Path> accepted = new ArrayList<>();
+    private final PriorityQueue<Path> candidates = new PriorityQueue<>();
+    private final Set<Path> known = new HashSet<>();
+    private Path last; // Last returned path; its spurs are generated on the next request
+    private double lastCost = Double.NaN;
+    private long created;
+    private int searches;
+
+    // Search state shared by all spur searches; an entry is valid while its stamp is current
+    private final IndexedMinHeap queue;
+    private final double[] distances;
+    private final int[] predecessors;
+    private final int[] visitStamps;
+    private final int[] settledStamps;
+    private final int[] blockedNodeStamps;
+    private final int[] blockedEdgeStamps; // Targets of excluded edges leaving the spur node
+    private int stamp;
+
+    /**
+     * Constructor; finds the shortest path, later paths are found as they are requested
+     * @param snapshot Graph snapshot
+     * @param source Source node ID
+     * @param target Target node ID
+     */
+    public KShortestPaths(GraphSnapshot snapshot, int source, int target) {
+        this.snapshot = snapshot;
+        this.target = target;
+        int n = snapshot.getNodeCount();
+        remaining = backwardDistances(snapshot, target);
+        queue = new IndexedMinHeap(n);
+        distances = new double[n];
+        predecessors = new int[n];
+        visitStamps = new int[n];
+        settledStamps = new int[n];
+        blockedNodeStamps = new int[n];
+        blockedEdgeStamps = new int[n];
+
+        stamp++;
+        if (search(source)) {
+            Path first = buildPath(null, 0, source);
+            known.add(first);
+            candidates.add(first);
+        }
+    }
+
+    /**
+     * Run Dijkstra's algorithm backwards over the in-edges of the target
+     */
+    private static double[] backwardDistances(GraphSnapshot snapshot, int target) {
+        int n = snapshot.getNodeCount();
+        int[] offsets = snapshot.getInOffsets();
+        int[] sources = snapshot.getInSources();
+        int[] weights = snapshot.getInWeights();
+        double[] result = new double[n];
+        Arrays.fill(result, Double.POSITIVE_INFINITY);
+        IndexedMinHeap queue = new IndexedMinHeap(n);
+        result[target] = 0.0;
+        queue.insertOrDecrease(target, 0.0);
+        while (!queue.isEmpty()) {
+            int current = queue.poll();
+            for (int p = offsets[current]; p < offsets[current + 1]; p++) {
+                int neighbor = sources[p];
+                double newDistance = result[current] + 1.0 / weights[p];
+                if (newDistance < result[neighbor]) {
+                    result[neighbor] = newDistance;
+                    queue.insertOrDecrease(neighbor, newDistance);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * A* search from a node to the target, avoiding the nodes and edges blocked under the current stamp
+     * @return true if the target was reached
+     */
+    private boolean search(int start) {
+        searches++;
+        int[] offsets = snapshot.getOutOffsets();
+        int[] targets = snapshot.getOutTargets();
+        int[] weights = snapshot.getOutWeights();
+        queue.clear();
+        visitStamps[start] = stamp;
+        distances[start] = 0.0;
+        predecessors[start] = -1;
+        queue.insertOrDecrease(start, remaining[start]);
+        while (!queue.isEmpty()) {
+            int current = queue.poll();
+            if (current == target) {
+                return true;
+            }
+            settledStamps[current] = stamp;
+            for (int p = offsets[current]; p < offsets[current + 1]; p++) {
+                int neighbor = targets[p];
+                if (settledStamps[neighbor] == stamp || blockedNodeStamps[neighbor] == stamp
+                        || remaining[neighbor] == Double.POSITIVE_INFINITY
+                        || (current == start && blockedEdgeStamps[neighbor] == stamp)) {
+                    continue;
+                }
+                double newDistance = distances[current] + 1.0 / weights[p];
+                if (visitStamps[neighbor] != stamp || newDistance < distances[neighbor]) {
+                    visitStamps[neighbor] = stamp;
+                    distances[neighbor] = newDistance;
+                    predecessors[neighbor] = current;
+                    queue.insertOrDecrease(neighbor, newDistance + remaining[neighbor]);
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Join the first spurIndex + 1 nodes of a root path with the path just found from its spur node
+     */
+    private Path buildPath(Path root, int spurIndex, int spurNode) {
+        int spurLength = 0;
+        for (int node = target; node >= 0 && node != spurNode; node = predecessors[node]) {
+            spurLength++;
+        }
+        int[] nodes = new int[spurIndex + 1 + spurLength];
+        double[] costs = new double[nodes.length];
+        double rootCost = 0.0;
+        if (root != null) {
+            System.arraycopy(root.nodes, 0, nodes, 0, spurIndex + 1);
+            System.arraycopy(root.costs, 0, costs, 0, spurIndex + 1);
+            rootCost = root.costs[spurIndex];
+        } else {
+            nodes[0] = spurNode;
+        }
+        for (int i = nodes.length - 1, node = target; i > spurIndex; i--, node = predecessors[node]) {
+            nodes[i] = node;
+            costs[i] = rootCost + distances[node];
+        }
+        return new Path(nodes, costs, spurIndex, created++);
+    }
+
+    /**
+     * Add the spur paths of an accepted path to the candidates
+     */
+    private void addSpurs(Path path) {
+        for (int i = path.deviation; i < path.nodes.length - 1; i++) {
+            stamp++;
+            // The root up to the spur node must not be revisited
+            for (int j = 0; j < i; j++) {
+                blockedNodeStamps[path.nodes[j]] = stamp;
+            }
+            // Paths already accepted with the same root must not be found again
+            for (Path other : accepted) {
+                if (other.nodes.length > i + 1 && other.hasPrefix(path, i + 1)) {
+                    blockedEdgeStamps[other.nodes[i + 1]] = stamp;
+                }
+            }
+            if (search(path.nodes[i])) {
+                Path candidate = buildPath(path, i, path.nodes[i]);
+                if (known.add(candidate)) {
+                    candidates.add(candidate);
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (last != null) {
+            addSpurs(last);
+            last = null;
+        }
+        return !candidates.isEmpty();
+    }
+
+    /**
+     * Get the next path, at least as long as every path returned before
+     * @return Words from source to target
+     */
+    @Override
+    public List<String> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Path path = candidates.poll();
+        accepted.add(path);
+        last = path;
+        lastCost = path.getCost();
+        List<String> words = new ArrayList<>(path.nodes.length);
+        for (int node : path.nodes) {
+            words.add(snapshot.getWord(node));
+        }
+        return words;
+    }
+
+    /**
+     * Get the length of the path last returned by next()
+     * @return Path length, or NaN if no path was returned yet
+     */
+    public double getLastCost() {
+        return lastCost;
+    }
+
+    /**
+     * Get the number of A* searches run so far, including the one for the shortest path
+     * @return Number of searches
+     */
+    public int getSearchCount() {
+        return searches;
+    }
+
+    /**
+     * A candidate path with the cumulative length at every node
+     */
+    private static class Path implements Comparable<Path> {
+        final int[] nodes;
+        final double[] costs; // costs[i] is the length of the path from nodes[0] to nodes[i]
+        final int deviation; // Index of the node where this path leaves the path it was spurred from
+        final long order; // Creation order, so that equally long paths are returned deterministically
+
+        Path(int[] nodes, double[] costs, int deviation, long order) {
+            this.nodes = nodes;
+            this.costs = costs;
+            this.deviation = deviation;
+            this.order = order;
+        }
+
+        double getCost() {
+            return costs[costs.length - 1];
+        }
+
+        boolean hasPrefix(Path other, int length) {
+            for (int i = 0; i < length; i++) {
+                if (nodes[i] != other.nodes[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int compareTo(Path other) {
+            int result = Double.compare(getCost(), other.getCost());
+            return result != 0 ? result : Long.compare(order, other.order);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Path && Arrays.equals(nodes, ((Path) o).nodes);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(nodes);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/**
+ * PageRank values of all nodes together with how the computation went,
+ * so callers can trade accuracy against latency
+ */
+public class PageRankResult {
+    private final double[] ranks;
+    private final int iterations;
+    private final double residual;
+    private final long elapsedNanos;
+
+    /**
+     * Constructor
+     * @param ranks PR value of every node, indexed by node ID
+     * @param iterations Number of iterations that were run
+     * @param residual L1 change of the rank vector in the last iteration
+     * @param elapsedNanos Wall time of the computation in nanoseconds
+     */
+    public PageRankResult(double[] ranks, int iterations, double residual, long elapsedNanos) {
+        this.ranks = ranks;
+        this.iterations = iterations;
+        this.residual = residual;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Get the PR value of a node
+     * @param id Node ID
+     * @return PR value
+     */
+    public double getRank(int id) {
+        return ranks[id];
+    }
+
+    /**
+     * Get the rank vector; the array is shared and must not be modified
+     * @return PR value of every node, indexed by node ID
+     */
+    public double[] getRanks() {
+        return ranks;
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    public double getResidual() {
+        return residual;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Get the wall time of the computation
+     * @return Elapsed time in milliseconds
+     */
+    public double getElapsedMillis() {
+        return elapsedNanos / 1e6;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d iterations, residual %.3e, %.1f ms", iterations, residual, getElapsedMillis());
+    }
+}
@@ -0,0 +1,300 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Stream;
+
+/**
+ * Builds graph fragments from a large text file, or from many files, in parallel.
+ * A single file is memory-mapped and split into chunks at word boundaries; each chunk
+ * is tokenized on its own core and the partial results are joined in file order.
+ * A set of files is tokenized one file per task on a work-stealing pool, and the
+ * per-file graphs are merged pairwise in file order by summing edge weights.
+ * The text is scanned byte by byte, which matches the character-based tokenizer
+ * for any ASCII-compatible encoding such as UTF-8.
+ */
+public class ParallelGraphLoader {
+    private static final long MAX_CHUNK_SIZE = 256L * 1024 * 1024; // Upper bound for one mapped chunk
+    private static final long MIN_CHUNK_SIZE = 1024L * 1024; // Smaller chunks are not worth a task
+    private static final int BOUNDARY_SCAN_SIZE = 4096;
+
+    private ParallelGraphLoader() {
+    }
+
+    /**
+     * Load a text file using all available cores
+     * @param filePath Text file path
+     * @return Fragment covering the whole file
+     * @throws IOException File reading exception
+     */
+    public static GraphFragment load(String filePath) throws IOException {
+        return load(filePath, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Load a text file using the given number of threads
+     * @param filePath Text file path
+     * @param threads Number of worker threads
+     * @return Fragment covering the whole file
+     * @throws IOException File reading exception
+     */
+    public static GraphFragment load(String filePath, int threads) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            long size = channel.size();
+            List<Long> boundaries = splitAtWordBoundaries(channel, size, threads);
+
+            ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+            try {
+                List<Future<GraphFragment>> futures = new ArrayList<>();
+                for (int i = 0; i < boundaries.size() - 1; i++) {
+                    long start = boundaries.get(i);
+                    long end = boundaries.get(i + 1);
+                    futures.add(executor.submit(() -> {
+                        GraphFragment fragment = new GraphFragment();
+                        scanChunk(channel, start, end, fragment);
+                        return fragment;
+                    }));
+                }
+
+                // Join the partial tables in file order so that boundary pairs are linked
+                GraphFragment result = new GraphFragment();
+                for (Future<GraphFragment> future : futures) {
+                    result.append(future.get());
+                }
+                return result;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Graph loading was interrupted");
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                }
+                throw new IOException("Error loading chunk: " + e.getCause().getMessage(), e.getCause());
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Resolve a directory, a glob pattern such as corpus/*.txt, or a single file
+     * into the list of files to load
+     * @param pathOrGlob Directory, glob pattern or file path
+     * @return Regular files in sorted path order
+     * @throws IOException Directory reading exception, or no file matching the pattern
+     */
+    public static List<Path> resolveFiles(String pathOrGlob) throws IOException {
+        if (!isGlob(pathOrGlob) && !Files.isDirectory(Paths.get(pathOrGlob))) {
+            return Collections.singletonList(Paths.get(pathOrGlob));
+        }
+
+        // Walk the directory part and match the rest of the pattern against paths relative to it
+        int baseLength = isGlob(pathOrGlob) ? globBaseLength(pathOrGlob) : pathOrGlob.length();
+        Path base = Paths.get(baseLength == 0 ? "." : pathOrGlob.substring(0, baseLength));
+        PathMatcher matcher = isGlob(pathOrGlob)
+                ? FileSystems.getDefault().getPathMatcher("glob:" + pathOrGlob.substring(baseLength))
+                : p -> true;
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> stream = Files.walk(base)) {
+            stream.filter(Files::isRegularFile).filter(p -> matcher.matches(base.relativize(p))).forEach(files::add);
+        }
+        if (files.isEmpty()) {
+            throw new IOException("No files found for '" + pathOrGlob + "'");
+        }
+        Collections.sort(files);
+        return files;
+    }
+
+    /**
+     * Check whether a path contains glob syntax
+     * @param path Path or pattern
+     * @return true if the path is a glob pattern
+     */
+    public static boolean isGlob(String path) {
+        return path.indexOf('*') >= 0 || path.indexOf('?') >= 0
+                || path.indexOf('[') >= 0 || path.indexOf('{') >= 0;
+    }
+
+    /**
+     * Get the length of the directory to walk for a glob pattern: everything up to the
+     * separator before the first path element that contains glob syntax, 0 if there is none
+     */
+    private static int globBaseLength(String pattern) {
+        int glob = pattern.length();
+        for (char c : new char[] {'*', '?', '[', '{'}) {
+            int index = pattern.indexOf(c);
+            if (index >= 0) {
+                glob = Math.min(glob, index);
+            }
+        }
+        int separator = Math.max(pattern.lastIndexOf('/', glob), pattern.lastIndexOf(File.separatorChar, glob));
+        return separator + 1;
+    }
+
+    /**
+     * Load several text files using all available cores
+     * @param files Files in corpus order
+     * @param linkFiles Whether the last word of each file is linked to the first word of the next
+     * @return Fragment covering all files
+     * @throws IOException File reading exception
+     */
+    public static GraphFragment loadAll(List<Path> files, boolean linkFiles) throws IOException {
+        return loadAll(files, linkFiles, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Load several text files using the given number of threads
+     * @param files Files in corpus order
+     * @param linkFiles Whether the last word of each file is linked to the first word of the next
+     * @param threads Number of worker threads
+     * @return Fragment covering all files
+     * @throws IOException File reading exception
+     */
+    public static GraphFragment loadAll(List<Path> files, boolean linkFiles, int threads) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, threads));
+        // A few ranges per thread keep all threads busy while limiting the number of merges
+        int filesPerTask = Math.max(1, files.size() / (Math.max(1, threads) * 4));
+        try {
+            return pool.invoke(new LoadFilesTask(files, 0, files.size(), filesPerTask, linkFiles));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Loads a range of files by splitting it in half until it is small enough to
+     * tokenize into one partial graph, then merges the two halves in file order
+     */
+    private static class LoadFilesTask extends RecursiveTask<GraphFragment> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Path> files;
+        private final int from;
+        private final int to;
+        private final int filesPerTask;
+        private final boolean linkFiles;
+
+        LoadFilesTask(List<Path> files, int from, int to, int filesPerTask, boolean linkFiles) {
+            this.files = files;
+            this.from = from;
+            this.to = to;
+            this.filesPerTask = filesPerTask;
+            this.linkFiles = linkFiles;
+        }
+
+        @Override
+        protected GraphFragment compute() {
+            if (to - from <= filesPerTask) {
+                GraphFragment fragment = new GraphFragment();
+                try {
+                    for (int i = from; i < to; i++) {
+                        if (!linkFiles) {
+                            fragment.breakLink();
+                        }
+                        scanFile(files.get(i), fragment);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return fragment;
+            }
+
+            int middle = (from + to) >>> 1;
+            LoadFilesTask right = new LoadFilesTask(files, middle, to, filesPerTask, linkFiles);
+            right.fork();
+            GraphFragment result = new LoadFilesTask(files, from, middle, filesPerTask, linkFiles).compute();
+            if (linkFiles) {
+                result.append(right.join());
+            } else {
+                result.merge(right.join());
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Tokenize one whole file on the current thread, continuing the given fragment
+     */
+    private static void scanFile(Path file, GraphFragment fragment) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            List<Long> boundaries = splitAtWordBoundaries(channel, size, 1);
+            for (int i = 0; i < boundaries.size() - 1; i++) {
+                if (boundaries.get(i) < boundaries.get(i + 1)) {
+                    scanChunk(channel, boundaries.get(i), boundaries.get(i + 1), fragment);
+                }
+            }
+        }
+    }
+
+    /**
+     * Split the file into chunks whose boundaries never fall inside a word
+     * @return Sorted chunk boundaries, starting with 0 and ending with the file size
+     */
+    private static List<Long> splitAtWordBoundaries(FileChannel channel, long size, int threads) throws IOException {
+        long chunkSize = size / Math.max(1, threads * 4L);
+        chunkSize = Math.max(MIN_CHUNK_SIZE, Math.min(MAX_CHUNK_SIZE, chunkSize));
+
+        List<Long> boundaries = new ArrayList<>();
+        boundaries.add(0L);
+        long position = chunkSize;
+        while (position < size) {
+            position = skipWord(channel, position, size);
+            if (position < size) {
+                boundaries.add(position);
+            }
+            position += chunkSize;
+        }
+        boundaries.add(size);
+        return boundaries;
+    }
+
+    /**
+     * Move forward from a position until it is not inside a word
+     * @return First position that does not hold a letter, or the file size
+     */
+    private static long skipWord(FileChannel channel, long position, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BOUNDARY_SCAN_SIZE);
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                return size;
+            }
+            for (int i = 0; i < read; i++) {
+                if (!WordTokenizer.isLetter(buffer.get(i))) {
+                    return position + i;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    /**
+     * Tokenize one chunk of the file into a partial graph
+     */
+    private static void scanChunk(FileChannel channel, long start, long end, GraphFragment fragment) throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        StringBuilder word = new StringBuilder();
+
+        int limit = buffer.limit();
+        for (int i = 0; i < limit; i++) {
+            byte c = buffer.get(i);
+            if (WordTokenizer.isLetter(c)) {
+                word.append(WordTokenizer.toLowerCase(c));
+            } else if (word.length() > 0) {
+                fragment.addWord(word.toString());
+                word.setLength(0);
+            }
+        }
+        if (word.length() > 0) {
+            fragment.addWord(word.toString());
+        }
+    }
+}
@@ -0,0 +1,141 @@
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * Personalized PageRank around a set of seed nodes, approximated by local forward push.
+ * Every node keeps an estimate and a residual; a node whose residual is large compared
+ * to its out-weight keeps (1 - d) of it as estimate and pushes the rest to its out-neighbours
+ * in proportion to the edge weights. Rank reaching a sink node jumps back to the seeds.
+ * Only nodes reached by a push are stored, so the work depends on the size of the touched
+ * neighbourhood and the threshold, not on the size of the graph.
+ */
+public class PersonalizedPageRank {
+    private final GraphSnapshot snapshot;
+    private final double dampingFactor;
+    private final double epsilon;
+    private final int[] seeds;
+
+    // Touched nodes are numbered in the order they are reached; slots maps node ID -> number
+    private final IntIntHashMap slots = new IntIntHashMap();
+    private int[] nodes = new int[16];
+    private double[] estimates = new double[16];
+    private double[] residuals = new double[16];
+    private int touched;
+    private int pushes;
+
+    /**
+     * Constructor
+     * @param snapshot Graph snapshot
+     * @param seeds IDs of the seed nodes; the random jump returns to them uniformly
+     * @param dampingFactor Probability of following an edge instead of jumping
+     * @param epsilon Residual per unit of out-weight below which a node is not pushed;
+     *                a smaller value gives closer estimates but touches more nodes
+     */
+    public PersonalizedPageRank(GraphSnapshot snapshot, int[] seeds, double dampingFactor, double epsilon) {
+        if (!(epsilon > 0)) {
+            throw new IllegalArgumentException("Epsilon must be positive: " + epsilon);
+        }
+        this.snapshot = snapshot;
+        this.seeds = seeds;
+        this.dampingFactor = dampingFactor;
+        this.epsilon = epsilon;
+    }
+
+    /**
+     * Run the push loop until every residual is below the threshold
+     */
+    public void run() {
+        int[] outOffsets = snapshot.getOutOffsets();
+        int[] outTargets = snapshot.getOutTargets();
+        int[] outWeights = snapshot.getOutWeights();
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+
+        for (int seed : seeds) {
+            addResidual(seed, 1.0 / seeds.length, queue);
+        }
+
+        while (!queue.isEmpty()) {
+            int slot = queue.poll();
+            int node = nodes[slot];
+            double residual = residuals[slot];
+            residuals[slot] = 0.0;
+            estimates[slot] += (1 - dampingFactor) * residual;
+            pushes++;
+
+            double pushed = dampingFactor * residual;
+            int outSum = snapshot.getOutWeightSum(node);
+            if (outSum == 0) {
+                // Sink node: the walk jumps back to the seeds
+                for (int seed : seeds) {
+                    addResidual(seed, pushed / seeds.length, queue);
+                }
+            } else {
+                for (int p = outOffsets[node]; p < outOffsets[node + 1]; p++) {
+                    addResidual(outTargets[p], pushed * outWeights[p] / outSum, queue);
+                }
+            }
+        }
+    }
+
+    /**
+     * Add to the residual of a node, queueing it once the residual crosses its push threshold
+     */
+    private void addResidual(int node, double amount, ArrayDeque<Integer> queue) {
+        int slot = slotOf(node);
+        double threshold = epsilon * Math.max(1, snapshot.getOutDegree(node));
+        double before = residuals[slot];
+        residuals[slot] = before + amount;
+        if (before < threshold && residuals[slot] >= threshold) {
+            queue.add(slot);
+        }
+    }
+
+    private int slotOf(int node) {
+        int slot = slots.getOrDefault(node, -1);
+        if (slot < 0) {
+            if (touched == nodes.length) {
+                nodes = Arrays.copyOf(nodes, touched * 2);
+                estimates = Arrays.copyOf(estimates, touched * 2);
+                residuals = Arrays.copyOf(residuals, touched * 2);
+            }
+            slot = touched++;
+            slots.put(node, slot);
+            nodes[slot] = node;
+        }
+        return slot;
+    }
+
+    /**
+     * Get the number of nodes reached by the push loop
+     * @return Number of touched nodes
+     */
+    public int getTouchedCount() {
+        return touched;
+    }
+
+    /**
+     * Get the number of push operations that were performed
+     * @return Number of pushes
+     */
+    public int getPushCount() {
+        return pushes;
+    }
+
+    /**
+     * Get the ID of a touched node
+     * @param index Index from 0 to getTouchedCount() - 1, in the order nodes were reached
+     * @return Node ID
+     */
+    public int getNode(int index) {
+        return nodes[index];
+    }
+
+    /**
+     * Get the approximate personalized PageRank of a touched node
+     * @param index Index from 0 to getTouchedCount() - 1
+     * @return Estimated PR value
+     */
+    public double getEstimate(int index) {
+        return estimates[index];
+    }
+}
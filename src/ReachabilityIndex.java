@@ -0,0 +1,277 @@
+import java.util.Arrays;
+
+/**
+ * Reachability index of a graph snapshot.
+ * Strongly connected components are found with an iterative version of Tarjan's algorithm
+ * and condensed into a DAG. Tarjan completes components in reverse topological order, so
+ * every DAG edge leads from a higher to a lower component number. Each component also gets
+ * two interval labels [low, post]: its number in a post-order of the DAG, and the smallest
+ * such number it can reach. Two orders are used, Tarjan's own and a second DFS visiting
+ * children in reverse, each with its own labels.
+ * If u reaches v, the interval of v lies inside the interval of u in both labelings, so
+ * most unreachable pairs are rejected with a few array reads. Pairs that pass are settled
+ * by a DFS over the DAG that skips every component whose labels exclude the target.
+ */
+public class ReachabilityIndex {
+    private final int[] components; // Component number of every node
+    private final int componentCount;
+    private final int[] dagOffsets;
+    private final int[] dagTargets;
+    private final int[] lows; // Smallest component number reachable from every component
+    private final int[] posts; // Post-order number of every component in the second DFS
+    private final int[] postLows; // Smallest second post-order number reachable from every component
+
+    /**
+     * Build the index
+     * @param snapshot Graph snapshot
+     */
+    public ReachabilityIndex(GraphSnapshot snapshot) {
+        int n = snapshot.getNodeCount();
+        components = new int[n];
+        componentCount = findComponents(snapshot, components);
+
+        // Condensed DAG: the distinct components reached by the out-edges of every component
+        int[] offsets = snapshot.getOutOffsets();
+        int[] targets = snapshot.getOutTargets();
+        int[] memberOffsets = new int[componentCount + 1];
+        for (int node = 0; node < n; node++) {
+            memberOffsets[components[node] + 1]++;
+        }
+        for (int c = 0; c < componentCount; c++) {
+            memberOffsets[c + 1] += memberOffsets[c];
+        }
+        int[] members = new int[n];
+        int[] fill = Arrays.copyOf(memberOffsets, componentCount);
+        for (int node = 0; node < n; node++) {
+            members[fill[components[node]]++] = node;
+        }
+        int[] lastSeen = new int[componentCount];
+        Arrays.fill(lastSeen, -1);
+        dagOffsets = new int[componentCount + 1];
+        int[] edges = new int[16];
+        int edgeCount = 0;
+        for (int c = 0; c < componentCount; c++) {
+            for (int m = memberOffsets[c]; m < memberOffsets[c + 1]; m++) {
+                int node = members[m];
+                for (int p = offsets[node]; p < offsets[node + 1]; p++) {
+                    int d = components[targets[p]];
+                    if (d != c && lastSeen[d] != c) {
+                        lastSeen[d] = c;
+                        if (edgeCount == edges.length) {
+                            edges = Arrays.copyOf(edges, edgeCount * 2);
+                        }
+                        edges[edgeCount++] = d;
+                    }
+                }
+            }
+            dagOffsets[c + 1] = edgeCount;
+        }
+        dagTargets = Arrays.copyOf(edges, edgeCount);
+
+        // Successors have lower numbers, so one ascending pass computes what each component reaches
+        lows = new int[componentCount];
+        for (int c = 0; c < componentCount; c++) {
+            int low = c;
+            for (int p = dagOffsets[c]; p < dagOffsets[c + 1]; p++) {
+                low = Math.min(low, lows[dagTargets[p]]);
+            }
+            lows[c] = low;
+        }
+        posts = reversePostOrder();
+        postLows = new int[componentCount];
+        for (int c = 0; c < componentCount; c++) {
+            int low = posts[c];
+            for (int p = dagOffsets[c]; p < dagOffsets[c + 1]; p++) {
+                low = Math.min(low, postLows[dagTargets[p]]);
+            }
+            postLows[c] = low;
+        }
+    }
+
+    /**
+     * Number the strongly connected components with an iterative Tarjan's algorithm
+     * @param snapshot Graph snapshot
+     * @param components Filled with the component number of every node
+     * @return Number of components
+     */
+    private static int findComponents(GraphSnapshot snapshot, int[] components) {
+        int n = snapshot.getNodeCount();
+        int[] offsets = snapshot.getOutOffsets();
+        int[] targets = snapshot.getOutTargets();
+        int[] order = new int[n]; // Discovery number + 1, 0 while undiscovered
+        int[] lowLinks = new int[n];
+        int[] stack = new int[n]; // Nodes whose component is not complete yet
+        int[] callNodes = new int[n]; // Explicit DFS call stack with the next edge of every frame
+        int[] callEdges = new int[n];
+        Arrays.fill(components, -1);
+        int discovered = 0;
+        int stackSize = 0;
+        int count = 0;
+
+        for (int root = 0; root < n; root++) {
+            if (order[root] != 0) {
+                continue;
+            }
+            int depth = 0;
+            order[root] = lowLinks[root] = ++discovered;
+            stack[stackSize++] = root;
+            callNodes[depth] = root;
+            callEdges[depth++] = offsets[root];
+            while (depth > 0) {
+                int node = callNodes[depth - 1];
+                int p = callEdges[depth - 1];
+                if (p < offsets[node + 1]) {
+                    callEdges[depth - 1]++;
+                    int next = targets[p];
+                    if (order[next] == 0) {
+                        order[next] = lowLinks[next] = ++discovered;
+                        stack[stackSize++] = next;
+                        callNodes[depth] = next;
+                        callEdges[depth++] = offsets[next];
+                    } else if (components[next] < 0) {
+                        // Still on the stack, so part of the component being built
+                        lowLinks[node] = Math.min(lowLinks[node], order[next]);
+                    }
+                    continue;
+                }
+                depth--;
+                if (lowLinks[node] == order[node]) {
+                    int member;
+                    do {
+                        member = stack[--stackSize];
+                        components[member] = count;
+                    } while (member != node);
+                    count++;
+                }
+                if (depth > 0) {
+                    int parent = callNodes[depth - 1];
+                    lowLinks[parent] = Math.min(lowLinks[parent], lowLinks[node]);
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Number the components in post-order of a DFS that visits roots and children in reverse
+     */
+    private int[] reversePostOrder() {
+        int[] result = new int[componentCount];
+        boolean[] visited = new boolean[componentCount];
+        int[] callNodes = new int[componentCount];
+        int[] callEdges = new int[componentCount];
+        int next = 0;
+        // Sources of the DAG have the highest numbers, so starting from the top visits them first
+        for (int root = componentCount - 1; root >= 0; root--) {
+            if (visited[root]) {
+                continue;
+            }
+            int depth = 0;
+            visited[root] = true;
+            callNodes[depth] = root;
+            callEdges[depth++] = dagOffsets[root + 1];
+            while (depth > 0) {
+                int c = callNodes[depth - 1];
+                int p = callEdges[depth - 1];
+                if (p > dagOffsets[c]) {
+                    callEdges[depth - 1]--;
+                    int child = dagTargets[p - 1];
+                    if (!visited[child]) {
+                        visited[child] = true;
+                        callNodes[depth] = child;
+                        callEdges[depth++] = dagOffsets[child + 1];
+                    }
+                    continue;
+                }
+                depth--;
+                result[c] = next++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Check the labels of two components
+     * @return false if the first component certainly cannot reach the second
+     */
+    private boolean labelsAllow(int from, int to) {
+        return from >= to && lows[from] <= lows[to]
+                && posts[from] >= posts[to] && postLows[from] <= postLows[to];
+    }
+
+    /**
+     * Quick reachability test in constant time
+     * @param fromId Start node ID
+     * @param toId Target node ID
+     * @return false if no path exists; true if a path may exist
+     */
+    public boolean mayReach(int fromId, int toId) {
+        return labelsAllow(components[fromId], components[toId]);
+    }
+
+    /**
+     * Exact reachability test
+     * @param fromId Start node ID
+     * @param toId Target node ID
+     * @return true if a path exists from the start node to the target node
+     */
+    public boolean canReach(int fromId, int toId) {
+        int from = components[fromId];
+        int to = components[toId];
+        if (from == to) {
+            return true;
+        }
+        if (!labelsAllow(from, to)) {
+            return false;
+        }
+        // DFS over the components whose labels still allow reaching the target
+        IntIntHashMap visited = new IntIntHashMap();
+        int[] stack = new int[16];
+        int size = 0;
+        stack[size++] = from;
+        visited.put(from, 1);
+        while (size > 0) {
+            int c = stack[--size];
+            for (int p = dagOffsets[c]; p < dagOffsets[c + 1]; p++) {
+                int d = dagTargets[p];
+                if (d == to) {
+                    return true;
+                }
+                if (!visited.containsKey(d) && labelsAllow(d, to)) {
+                    visited.put(d, 1);
+                    if (size == stack.length) {
+                        stack = Arrays.copyOf(stack, size * 2);
+                    }
+                    stack[size++] = d;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the strongly connected component of a node; every path between different
+     * components leads from a higher to a lower component number
+     * @param id Node ID
+     * @return Component number
+     */
+    public int getComponent(int id) {
+        return components[id];
+    }
+
+    /**
+     * Get the number of strongly connected components
+     * @return Number of components
+     */
+    public int getComponentCount() {
+        return componentCount;
+    }
+
+    /**
+     * Get the number of edges between components in the condensed DAG
+     * @return Number of DAG edges
+     */
+    public int getDagEdgeCount() {
+        return dagTargets.length;
+    }
+}
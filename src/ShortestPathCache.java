@@ -0,0 +1,194 @@
+import java.util.*;
+
+/**
+ * Bounded cache of single-source shortest path trees for a graph snapshot.
+ * Trees are kept in least-recently-used order and evicted once their estimated size
+ * exceeds the memory budget. When the graph changes, only the trees that reach a node
+ * whose out-edges changed are dropped; the whole cache is dropped when it is used with
+ * a snapshot it was not moved to, e.g. after the graph was replaced.
+ * Building a full tree costs much more than one point-to-point search, so a source only
+ * gets a tree once it has been requested several times and clearly more often than
+ * the tree it would evict. Request counts are halved periodically so that old popularity fades.
+ */
+public class ShortestPathCache {
+    private static final int MIN_REQUESTS = 4; // Requests of a source before a full tree is built for it
+    private static final int AGING_PERIOD = 8192; // Requests between two halvings of the request counts
+
+    private final long maxBytes;
+    private final LinkedHashMap<Integer, ShortestPathTree> trees;
+    private final Map<Integer, Integer> requestCounts;
+    private int requestsSinceAging;
+    private GraphSnapshot snapshot;
+    private long bytes;
+    private long hits;
+    private long misses;
+
+    /**
+     * Constructor
+     * @param maxBytes Memory budget for the cached trees, in bytes
+     */
+    public ShortestPathCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+        trees = new LinkedHashMap<>(16, 0.75f, true);
+        requestCounts = new HashMap<>();
+    }
+
+    /**
+     * Get a tree holding all shortest paths from a source to one target.
+     * A cached tree answers in time proportional to the path length. Otherwise a full
+     * tree is built and cached if the source is popular enough, or a point-to-point search runs.
+     * @param snapshot Current graph snapshot
+     * @param source Source node ID
+     * @param target Target node ID
+     * @return Tree whose paths to the target are complete
+     */
+    public ShortestPathTree getPathsTo(GraphSnapshot snapshot, int source, int target) {
+        ShortestPathTree tree = lookup(snapshot, source);
+        if (tree != null) {
+            return tree;
+        }
+        if (!shouldAdmit(source)) {
+            return ShortestPathTree.toTarget(snapshot, source, target);
+        }
+        tree = new ShortestPathTree(snapshot, source);
+        store(source, tree);
+        return tree;
+    }
+
+    /**
+     * Get the full shortest path tree of a source, building it if needed.
+     * A newly built tree is cached under the same admission rule as getPathsTo.
+     * @param snapshot Current graph snapshot
+     * @param source Source node ID
+     * @return Tree with the shortest paths to every node
+     */
+    public ShortestPathTree getTree(GraphSnapshot snapshot, int source) {
+        ShortestPathTree tree = lookup(snapshot, source);
+        if (tree == null) {
+            tree = new ShortestPathTree(snapshot, source);
+            if (shouldAdmit(source)) {
+                store(source, tree);
+            }
+        }
+        return tree;
+    }
+
+    private ShortestPathTree lookup(GraphSnapshot snapshot, int source) {
+        if (this.snapshot != snapshot) {
+            clear();
+            this.snapshot = snapshot;
+        }
+        countRequest(source);
+        ShortestPathTree tree = trees.get(source);
+        if (tree != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return tree;
+    }
+
+    private void countRequest(int source) {
+        requestCounts.merge(source, 1, Integer::sum);
+        if (++requestsSinceAging >= AGING_PERIOD) {
+            requestsSinceAging = 0;
+            requestCounts.replaceAll((id, count) -> count / 2);
+            requestCounts.values().removeIf(count -> count == 0);
+        }
+    }
+
+    /**
+     * Decide whether a tree for the source is worth building and keeping
+     */
+    private boolean shouldAdmit(int source) {
+        int count = requestCounts.getOrDefault(source, 0);
+        if (count < MIN_REQUESTS) {
+            return false;
+        }
+        if (trees.isEmpty() || bytes + trees.values().iterator().next().estimateBytes() <= maxBytes) {
+            return true;
+        }
+        // The cache is full: only replace the least recently used tree with a clearly more
+        // popular source, so that sources of similar popularity don't keep replacing each other
+        int victim = trees.keySet().iterator().next();
+        return count > 2 * requestCounts.getOrDefault(victim, 0);
+    }
+
+    private void store(int source, ShortestPathTree tree) {
+        long size = tree.estimateBytes();
+        if (size > maxBytes) {
+            return;
+        }
+        trees.put(source, tree);
+        bytes += size;
+        Iterator<ShortestPathTree> eldest = trees.values().iterator();
+        while (bytes > maxBytes) {
+            bytes -= eldest.next().estimateBytes();
+            eldest.remove();
+        }
+    }
+
+    /**
+     * Move the cache to the next snapshot of the same graph, dropping only the trees that
+     * reach a node whose out-edges changed. Every other tree sees exactly the same edges in
+     * the new snapshot, so it is still exact.
+     * @param previous Snapshot the graph was frozen to before the change
+     * @param current Snapshot after the change
+     * @param changedOutRows Nodes whose out-edges changed in between
+     */
+    public void advance(GraphSnapshot previous, GraphSnapshot current, BitSet changedOutRows) {
+        if (snapshot != previous) {
+            return; // Not built on the previous snapshot; the next lookup clears it
+        }
+        Iterator<ShortestPathTree> iterator = trees.values().iterator();
+        while (iterator.hasNext()) {
+            ShortestPathTree tree = iterator.next();
+            if (tree.reachesAny(changedOutRows)) {
+                bytes -= tree.estimateBytes();
+                iterator.remove();
+            } else {
+                tree.setSnapshot(current);
+            }
+        }
+        snapshot = current;
+    }
+
+    /**
+     * Remove all cached trees and request counts
+     */
+    public void clear() {
+        trees.clear();
+        requestCounts.clear();
+        requestsSinceAging = 0;
+        bytes = 0;
+    }
+
+    /**
+     * Get the number of requests answered from a cached tree
+     * @return Hit count
+     */
+    public long getHitCount() {
+        return hits;
+    }
+
+    /**
+     * Get the number of requests that found no cached tree
+     * @return Miss count
+     */
+    public long getMissCount() {
+        return misses;
+    }
+
+    /**
+     * Get the number of cached trees
+     * @return Number of trees
+     */
+    public int size() {
+        return trees.size();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d trees, %.1f MB, %d hits, %d misses", trees.size(), bytes / 1048576.0, hits, misses);
+    }
+}
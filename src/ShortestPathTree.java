@@ -0,0 +1,354 @@
+import java.util.*;
+
+/**
+ * All shortest paths from one source node, as computed by Dijkstra's algorithm with
+ * edge cost 1 / weight.
+ * Instead of copying path prefixes onto every tie, each node keeps the list of its
+ * predecessors on a shortest path. These lists form a DAG whose source-to-target
+ * paths are exactly the shortest paths, so memory is O(V + E) even when the number
+ * of tied paths is exponential. Paths are enumerated lazily from the DAG on request.
+ */
+public class ShortestPathTree {
+    private GraphSnapshot snapshot;
+    private final int source;
+    private final double[] distances;
+
+    // Predecessor lists as linked entries in insertion (settle) order; -1 ends a list
+    private final int[] predecessorHead;
+    private final int[] predecessorTail;
+    private int[] predecessorNode = new int[16];
+    private int[] predecessorNext = new int[16];
+    private int predecessorCount;
+
+    // Nodes in the order they were settled, each after all of its predecessors
+    private final int[] settleOrder;
+    private int settledCount;
+    private long[] pathCounts;
+
+    /**
+     * Run Dijkstra's algorithm from a source node
+     * @param snapshot Graph snapshot
+     * @param source Source node ID
+     */
+    public ShortestPathTree(GraphSnapshot snapshot, int source) {
+        this(snapshot, source, null, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Find all shortest paths from a source node to one target node.
+     * A bidirectional search over out-edges from the source and in-edges into the target
+     * first finds the shortest distance. The forward search is then repeated, skipping every
+     * node that the backward search proves cannot lie on a path of that length, so only the
+     * corridor between the two words is explored. Distances and paths are complete for the
+     * target only.
+     * @param snapshot Graph snapshot
+     * @param source Source node ID
+     * @param target Target node ID
+     * @return Shortest path tree holding all shortest paths to the target
+     */
+    public static ShortestPathTree toTarget(GraphSnapshot snapshot, int source, int target) {
+        int n = snapshot.getNodeCount();
+        double[] forward = new double[n];
+        double[] backward = new double[n];
+        boolean[] backwardSettled = new boolean[n];
+        Arrays.fill(forward, Double.POSITIVE_INFINITY);
+        Arrays.fill(backward, Double.POSITIVE_INFINITY);
+        IndexedMinHeap forwardQueue = new IndexedMinHeap(n);
+        IndexedMinHeap backwardQueue = new IndexedMinHeap(n);
+        forward[source] = 0.0;
+        backward[target] = 0.0;
+        forwardQueue.insertOrDecrease(source, 0.0);
+        backwardQueue.insertOrDecrease(target, 0.0);
+
+        int[] outOffsets = snapshot.getOutOffsets();
+        int[] outTargets = snapshot.getOutTargets();
+        int[] outWeights = snapshot.getOutWeights();
+        int[] inOffsets = snapshot.getInOffsets();
+        int[] inSources = snapshot.getInSources();
+        int[] inWeights = snapshot.getInWeights();
+
+        // Length of the best path seen where the two searches meet; it is the shortest
+        // distance once the two frontiers together are at least as long
+        double best = source == target ? 0.0 : Double.POSITIVE_INFINITY;
+        while (!forwardQueue.isEmpty() && !backwardQueue.isEmpty()
+                && forwardQueue.peekKey() + backwardQueue.peekKey() < best) {
+            if (forwardQueue.peekKey() <= backwardQueue.peekKey()) {
+                int current = forwardQueue.poll();
+                for (int p = outOffsets[current]; p < outOffsets[current + 1]; p++) {
+                    int neighbor = outTargets[p];
+                    double newDistance = forward[current] + 1.0 / outWeights[p];
+                    if (newDistance < forward[neighbor]) {
+                        forward[neighbor] = newDistance;
+                        forwardQueue.insertOrDecrease(neighbor, newDistance);
+                    }
+                    best = Math.min(best, newDistance + backward[neighbor]);
+                }
+            } else {
+                int current = backwardQueue.poll();
+                backwardSettled[current] = true;
+                for (int p = inOffsets[current]; p < inOffsets[current + 1]; p++) {
+                    int neighbor = inSources[p];
+                    double newDistance = backward[current] + 1.0 / inWeights[p];
+                    if (newDistance < backward[neighbor]) {
+                        backward[neighbor] = newDistance;
+                        backwardQueue.insertOrDecrease(neighbor, newDistance);
+                    }
+                    best = Math.min(best, newDistance + forward[neighbor]);
+                }
+            }
+        }
+
+        // Lower bound on the distance from every node to the target: exact where the backward
+        // search settled the node, otherwise at least the smallest key left in its queue
+        double[] remaining = backward;
+        double floor = backwardQueue.peekKey();
+        for (int id = 0; id < n; id++) {
+            if (!backwardSettled[id]) {
+                remaining[id] = floor;
+            }
+        }
+        // The slack covers rounding differences between forward and backward sums, so that
+        // paths tied with the shortest one are never pruned
+        double bound = best == Double.POSITIVE_INFINITY ? 0.0 : best * (1 + 1e-9);
+        return new ShortestPathTree(snapshot, source, remaining, bound);
+    }
+
+    /**
+     * Run Dijkstra's algorithm, skipping nodes whose distance plus lower bound exceeds the bound
+     */
+    private ShortestPathTree(GraphSnapshot snapshot, int source, double[] remaining, double bound) {
+        this.snapshot = snapshot;
+        this.source = source;
+        int n = snapshot.getNodeCount();
+        distances = new double[n];
+        predecessorHead = new int[n];
+        predecessorTail = new int[n];
+        settleOrder = new int[n];
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+        Arrays.fill(predecessorHead, -1);
+
+        int[] offsets = snapshot.getOutOffsets();
+        int[] targets = snapshot.getOutTargets();
+        int[] weights = snapshot.getOutWeights();
+        IndexedMinHeap queue = new IndexedMinHeap(n);
+        distances[source] = 0.0;
+        queue.insertOrDecrease(source, 0.0);
+        while (!queue.isEmpty()) {
+            int current = queue.poll();
+            settleOrder[settledCount++] = current;
+
+            for (int p = offsets[current]; p < offsets[current + 1]; p++) {
+                int neighbor = targets[p];
+                double newDistance = distances[current] + 1.0 / weights[p];
+                if (remaining != null && newDistance + remaining[neighbor] > bound) {
+                    continue;
+                }
+                if (newDistance < distances[neighbor]) {
+                    // A shorter distance replaces all predecessors found so far
+                    distances[neighbor] = newDistance;
+                    predecessorHead[neighbor] = -1;
+                    addPredecessor(neighbor, current);
+                    queue.insertOrDecrease(neighbor, newDistance);
+                } else if (newDistance == distances[neighbor]) {
+                    addPredecessor(neighbor, current);
+                }
+            }
+        }
+    }
+
+    private void addPredecessor(int node, int predecessor) {
+        if (predecessorCount == predecessorNode.length) {
+            predecessorNode = Arrays.copyOf(predecessorNode, predecessorCount * 2);
+            predecessorNext = Arrays.copyOf(predecessorNext, predecessorCount * 2);
+        }
+        int entry = predecessorCount++;
+        predecessorNode[entry] = predecessor;
+        predecessorNext[entry] = -1;
+        if (predecessorHead[node] < 0) {
+            predecessorHead[node] = entry;
+        } else {
+            predecessorNext[predecessorTail[node]] = entry;
+        }
+        predecessorTail[node] = entry;
+    }
+
+    /**
+     * Estimate the memory held by this tree, including the path counts once they are computed
+     * @return Approximate size in bytes
+     */
+    public long estimateBytes() {
+        long n = distances.length;
+        return 8 * n + 4 * 3 * n + 4L * 2 * predecessorNode.length + 8 * n;
+    }
+
+    /**
+     * Check whether the source reaches any of the given nodes. If it reaches none of them,
+     * a graph that differs only in the out-edges of those nodes has exactly the same tree,
+     * so the tree can be moved to its snapshot with setSnapshot
+     * @param nodes Node IDs
+     * @return true if one of the nodes can be reached
+     */
+    public boolean reachesAny(BitSet nodes) {
+        for (int node = nodes.nextSetBit(0); node >= 0 && node < distances.length; node = nodes.nextSetBit(node + 1)) {
+            if (distances[node] != Double.POSITIVE_INFINITY) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Use the tree with a later snapshot of the same graph; only valid if reachesAny is false
+     * for the nodes whose out-edges changed in between
+     * @param snapshot New graph snapshot
+     */
+    public void setSnapshot(GraphSnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * Get the source node
+     * @return Source node ID
+     */
+    public int getSource() {
+        return source;
+    }
+
+    /**
+     * Check whether a node can be reached from the source
+     * @param target Target node ID
+     * @return true if a path exists
+     */
+    public boolean hasPath(int target) {
+        // Nodes added to the graph after the tree was built are unreachable, see reachesAny
+        return target < distances.length && distances[target] != Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Get the length of the shortest path to a node
+     * @param target Target node ID
+     * @return Path length, or positive infinity if the node is unreachable
+     */
+    public double getDistance(int target) {
+        return target < distances.length ? distances[target] : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Count the shortest paths to a node, saturating at Long.MAX_VALUE
+     * @param target Target node ID
+     * @return Number of distinct shortest paths, 0 if the node is unreachable
+     */
+    public long getPathCount(int target) {
+        if (target >= distances.length) {
+            return 0;
+        }
+        if (pathCounts == null) {
+            // Every node is settled after its predecessors, so one pass in settle order suffices
+            long[] counts = new long[distances.length];
+            counts[source] = 1;
+            for (int i = 1; i < settledCount; i++) {
+                int node = settleOrder[i];
+                long count = 0;
+                for (int e = predecessorHead[node]; e >= 0; e = predecessorNext[e]) {
+                    count += counts[predecessorNode[e]];
+                    if (count < 0) {
+                        count = Long.MAX_VALUE;
+                        break;
+                    }
+                }
+                counts[node] = count;
+            }
+            pathCounts = counts;
+        }
+        return pathCounts[target];
+    }
+
+    /**
+     * Get the first shortest path to a node, following the first predecessor of every node
+     * @param target Target node ID
+     * @return Words from source to target, or null if the node is unreachable
+     */
+    public List<String> getFirstPath(int target) {
+        Iterator<List<String>> paths = paths(target);
+        return paths.hasNext() ? paths.next() : null;
+    }
+
+    /**
+     * Enumerate all shortest paths to a node lazily.
+     * Paths are built only as the iterator is advanced, each in time proportional to its length.
+     * @param target Target node ID
+     * @return Iterator over paths, each a list of words from source to target
+     */
+    public Iterator<List<String>> paths(int target) {
+        return new PathIterator(target);
+    }
+
+    /**
+     * Walks the predecessor DAG backwards from the target like an odometer: the choice
+     * nearest to the source changes fastest
+     */
+    private class PathIterator implements Iterator<List<String>> {
+        // nodes[0] is the target and nodes[length - 1] the source; entries[i] leads from nodes[i] to nodes[i + 1]
+        private int[] nodes = new int[16];
+        private int[] entries = new int[16];
+        private int length;
+        private boolean hasNext;
+
+        PathIterator(int target) {
+            if (hasPath(target)) {
+                nodes[0] = target;
+                length = 1;
+                descend(0);
+                hasNext = true;
+            }
+        }
+
+        /**
+         * Follow first predecessors from nodes[level] until the source is reached
+         */
+        private void descend(int level) {
+            length = level + 1;
+            while (nodes[length - 1] != source) {
+                if (length == nodes.length) {
+                    nodes = Arrays.copyOf(nodes, length * 2);
+                    entries = Arrays.copyOf(entries, length * 2);
+                }
+                int entry = predecessorHead[nodes[length - 1]];
+                entries[length - 1] = entry;
+                nodes[length] = predecessorNode[entry];
+                length++;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return hasNext;
+        }
+
+        @Override
+        public List<String> next() {
+            if (!hasNext) {
+                throw new NoSuchElementException();
+            }
+            List<String> path = new ArrayList<>(length);
+            for (int i = length - 1; i >= 0; i--) {
+                path.add(snapshot.getWord(nodes[i]));
+            }
+            advance();
+            return path;
+        }
+
+        private void advance() {
+            for (int level = length - 2; level >= 0; level--) {
+                int entry = predecessorNext[entries[level]];
+                if (entry >= 0) {
+                    entries[level] = entry;
+                    nodes[level + 1] = predecessorNode[entry];
+                    descend(level + 1);
+                    return;
+                }
+            }
+            hasNext = false;
+        }
+    }
+}
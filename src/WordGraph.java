@@ -1,20 +1,65 @@
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
 
 /**
  * Main class implementing all required functionality
  */
 public class WordGraph {
-    private DirectedGraph graph;
+    private DirectedGraph graph; // null while only a snapshot loaded from a binary graph file is available
     private Random random;
+    // Read-only CSR snapshot used by the query algorithms, rebuilt when the graph changes
+    private GraphSnapshot snapshot;
+    private long snapshotVersion;
+    private String lastWord; // Last word ingested, linked to the first word of the next appended text
+    // Shortest path trees of frequently queried start words, dropped when a change reaches them
+    private final ShortestPathCache shortestPathCache = new ShortestPathCache(Runtime.getRuntime().maxMemory() / 8);
+    // PageRank of every node, valid for the snapshot it was computed on; the graph it was
+    // computed on is kept so that the next run after an append can start from these ranks
+    private PageRankResult pageRanks;
+    private GraphSnapshot pageRankSnapshot;
+    private DirectedGraph pageRankGraph;
+    private double pageRankTolerance = DEFAULT_TOLERANCE;
+    // TF-IDF of every node, used as the PageRank teleport distribution
+    private double[] tfidf;
+    private GraphSnapshot tfidfSnapshot;
+    // Strongly connected components and reachability labels, valid for the snapshot they were built on
+    private ReachabilityIndex reachability;
+    private GraphSnapshot reachabilitySnapshot;
+    // Sorted-row intersection of out- and in-neighbours answering bridge word queries
+    private BridgeWordEngine bridgeEngine;
+    private GraphSnapshot bridgeEngineSnapshot;
+    // Precomputed bridge words, built per snapshot when a memory budget is set
+    private long bridgeIndexBudget;
+    private BridgeIndex bridgeIndex;
+    private GraphSnapshot bridgeIndexSnapshot;
     private static final double DAMPING_FACTOR = 0.85; // Damping factor for PageRank algorithm
     private static final int MAX_ITERATIONS = 500; // Maximum iterations for PageRank algorithm
+    private static final double DEFAULT_TOLERANCE = 1e-10; // PageRank stops once the L1 change of an iteration is below this
+    private static final double DEFAULT_PUSH_EPSILON = 1e-7; // Residual threshold of personalized PageRank
+    private static final int MAX_DISPLAYED_PATHS = 100; // Tied shortest paths beyond this are counted but not listed
+    private static final int BATCH_LINES = 4096; // Lines read and processed together in batch text generation
+    private static final Pattern NON_LETTERS = Pattern.compile("[^a-zA-Z]");
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+    private static final long PARALLEL_LOAD_THRESHOLD = 64L * 1024 * 1024; // Files at least this large are loaded in parallel
     
     /**
      * Constructor
      */
     public WordGraph() {
-        graph = new DirectedGraph();
+        this(new DirectedGraph());
+    }
+
+    /**
+     * Constructor
+     * @param graph Existing graph to analyse, for example one built by ConcurrentDirectedGraph
+     */
+    public WordGraph(DirectedGraph graph) {
+        this.graph = graph;
         random = new Random();
     }
     
@@ -24,40 +69,174 @@ public class WordGraph {
      * @throws IOException File reading exception
      */
     public void buildGraphFromFile(String filePath) throws IOException {
-        BufferedReader reader = new BufferedReader(new FileReader(filePath));
-        StringBuilder textBuilder = new StringBuilder();
-        String line;
-        
-        // Read all text
-        while ((line = reader.readLine()) != null) {
-            textBuilder.append(line).append(" "); // Replace newlines with spaces
+        // Stream words straight from the file so memory depends on vocabulary size only
+        try (Reader reader = new FileReader(filePath)) {
+            ingest(reader, null);
         }
-        reader.close();
-        
-        String text = textBuilder.toString();
-        // Replace all non-alphabetic characters with spaces
-        text = text.replaceAll("[^a-zA-Z]", " ");
-        // Replace multiple consecutive spaces with a single space
-        text = text.replaceAll("\\s+", " ").trim();
-        
-        // Split text by spaces to get all words
-        String[] words = text.split(" ");
-        
-        // Build directed graph
-        for (int i = 0; i < words.length - 1; i++) {
-            String currentWord = words[i];
-            String nextWord = words[i + 1];
-            
-            // Skip empty words
-            if (currentWord.isEmpty() || nextWord.isEmpty()) {
-                continue;
+    }
+
+    /**
+     * Append a text fragment to the existing graph.
+     * The last word read before links to the first word of the fragment; only the
+     * changed rows are rebuilt the next time a query needs the snapshot.
+     * @param text Text to append
+     */
+    public void appendText(String text) {
+        try {
+            ingest(new StringReader(text), lastWord);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // StringReader doesn't throw
+        }
+    }
+
+    /**
+     * Append the words of another text file to the existing graph.
+     * The last word read before links to the first word of the file.
+     * @param filePath Text file path
+     * @throws IOException File reading exception
+     */
+    public void appendFile(String filePath) throws IOException {
+        try (Reader reader = new FileReader(filePath)) {
+            ingest(reader, lastWord);
+        }
+    }
+
+    /**
+     * Add an edge for each adjacent word pair read from the reader
+     * @param reader Text source
+     * @param previousWord Word the first word should be linked from, or null
+     */
+    private void ingest(Reader reader, String previousWord) throws IOException {
+        DirectedGraph graph = graph();
+        WordTokenizer tokenizer = new WordTokenizer(reader);
+        if (previousWord == null) {
+            previousWord = tokenizer.nextWord();
+        }
+        String currentWord;
+
+        // Build directed graph from each adjacent word pair
+        while (previousWord != null && (currentWord = tokenizer.nextWord()) != null) {
+            graph.addEdge(previousWord, currentWord);
+            previousWord = currentWord;
+        }
+        if (previousWord != null) {
+            lastWord = previousWord;
+        }
+    }
+
+    /**
+     * Build a directed graph from a large text file using all available cores.
+     * The file is memory-mapped and tokenized in chunks; the result is identical to buildGraphFromFile.
+     * @param filePath Text file path
+     * @throws IOException File reading exception
+     */
+    public void buildGraphFromFileParallel(String filePath) throws IOException {
+        adopt(ParallelGraphLoader.load(filePath));
+    }
+
+    /**
+     * Add the edges of a loaded fragment, taking over its graph if the current graph is empty
+     */
+    private void adopt(GraphFragment fragment) {
+        if (graph().getNodes().isEmpty()) {
+            graph = fragment.getGraph();
+            snapshot = null;
+        } else {
+            graph.addAll(fragment.getGraph());
+        }
+        if (fragment.getLastWord() != null) {
+            lastWord = fragment.getLastWord();
+        }
+    }
+
+    /**
+     * Build a directed graph from all files in a directory, or all files matching a glob
+     * pattern such as corpus/*.txt. Files are tokenized in parallel and read in sorted path order.
+     * @param pathOrGlob Directory, glob pattern or single file path
+     * @param linkFiles Whether the last word of each file is linked to the first word of the next
+     * @throws IOException File reading exception
+     */
+    public void buildGraphFromFiles(String pathOrGlob, boolean linkFiles) throws IOException {
+        GraphFragment fragment = ParallelGraphLoader.loadAll(ParallelGraphLoader.resolveFiles(pathOrGlob), linkFiles);
+        adopt(fragment);
+    }
+
+    /**
+     * Get a read-only snapshot of the current graph, freezing it again only if it changed
+     * @return CSR snapshot of the graph
+     */
+    private GraphSnapshot snapshot() {
+        if (graph == null) {
+            return snapshot;
+        }
+        if (snapshot == null || snapshotVersion != graph.getVersion()) {
+            GraphSnapshot previous = snapshot;
+            BitSet changedOutRows = graph.getChangedOutRows();
+            snapshot = graph.freeze();
+            snapshotVersion = graph.getVersion();
+            if (previous != null) {
+                shortestPathCache.advance(previous, snapshot, changedOutRows);
             }
-            
-            // Add edge (word pair) to graph
-            graph.addEdge(currentWord, nextWord);
         }
+        return snapshot;
     }
-    
+
+    /**
+     * Get the mutable graph, rebuilding it from the snapshot if only a binary graph file was loaded
+     * @return Directed graph
+     */
+    private DirectedGraph graph() {
+        if (graph == null) {
+            graph = snapshot.thaw();
+            snapshotVersion = graph.getVersion();
+        }
+        return graph;
+    }
+
+    /**
+     * Save the graph in the binary graph file format
+     * @param filePath Output file path
+     * @throws IOException File writing exception
+     */
+    public void saveGraph(String filePath) throws IOException {
+        GraphFile.save(snapshot(), filePath);
+    }
+
+    /**
+     * Load a graph saved with saveGraph, replacing the current graph.
+     * Queries are answered from the memory-mapped arrays without rebuilding the graph.
+     * @param filePath Binary graph file path
+     * @throws IOException File reading exception
+     */
+    public void loadGraph(String filePath) throws IOException {
+        snapshot = GraphFile.load(filePath);
+        graph = null;
+        lastWord = null;
+    }
+
+    /**
+     * Find all bridge words between two nodes
+     * @param engine Bridge word engine of the snapshot
+     * @param index Reachability index of the snapshot, or null
+     * @param bridgeIndex Precomputed bridge words of the snapshot, or null
+     * @param fromId First node ID, or -1 if not in the graph
+     * @param toId Second node ID, or -1 if not in the graph
+     * @return IDs of the bridge words in ascending order
+     */
+    private static int[] findBridges(BridgeWordEngine engine, ReachabilityIndex index, BridgeIndex bridgeIndex,
+                                     int fromId, int toId) {
+        if (fromId < 0 || toId < 0) {
+            return new int[0];
+        }
+        // A bridge word lies on a path from the first node to the second, so none exist without one
+        if (index != null && !index.mayReach(fromId, toId)) {
+            return new int[0];
+        }
+        // Bridge words are the out-neighbours of the first node that are in-neighbours of the second
+        return bridgeIndex != null && bridgeIndex.isIndexed(fromId)
+                ? bridgeIndex.getBridges(fromId, toId) : engine.findBridges(fromId, toId);
+    }
+
     /**
      * Display the directed graph
      * @param G Directed graph object
@@ -97,21 +276,16 @@ public class WordGraph {
         word2 = word2.toLowerCase();
         
         // Check if both words are in the graph
-        if (!graph.containsNode(word1) || !graph.containsNode(word2)) {
+        GraphSnapshot snapshot = snapshot();
+        if (snapshot.getNodeId(word1) < 0 || snapshot.getNodeId(word2) < 0) {
             return "No " + word1 + " or " + word2 + " in the graph!";
         }
         
         // Find bridge words
         List<String> bridgeWords = new ArrayList<>();
-        
-        // Get all neighbors of word1
-        Map<String, Integer> neighborsOfWord1 = graph.getEdges(word1);
-        
-        // For each neighbor of word1, check if it also points to word2
-        for (String potentialBridge : neighborsOfWord1.keySet()) {
-            if (graph.getEdgeWeight(potentialBridge, word2) > 0) {
-                bridgeWords.add(potentialBridge);
-            }
+        for (int bridge : findBridges(bridgeWordEngine(), currentReachabilityIndex(), getBridgeIndex(),
+                snapshot.getNodeId(word1), snapshot.getNodeId(word2))) {
+            bridgeWords.add(snapshot.getWord(bridge));
         }
         
         // Return appropriate message based on results
@@ -136,16 +310,75 @@ public class WordGraph {
         }
     }
     
+    /**
+     * Get the bridge word engine of the current graph, built once per snapshot
+     * @return Bridge word engine
+     */
+    private BridgeWordEngine bridgeWordEngine() {
+        GraphSnapshot snapshot = snapshot();
+        if (bridgeEngineSnapshot != snapshot) {
+            bridgeEngine = new BridgeWordEngine(snapshot);
+            bridgeEngineSnapshot = snapshot;
+        }
+        return bridgeEngine;
+    }
+
+    /**
+     * Enable or disable the precomputed bridge word index.
+     * With a budget, the bridge words of the most frequent first words are computed once per
+     * graph snapshot, and their queries are answered with one hash lookup instead of a scan.
+     * @param maxBytes Memory budget of the index in bytes, 0 to disable it
+     */
+    public void setBridgeIndexBudget(long maxBytes) {
+        bridgeIndexBudget = maxBytes;
+        bridgeIndex = null;
+        bridgeIndexSnapshot = null;
+    }
+
+    /**
+     * Get the bridge word index of the current snapshot, building it if a budget is set
+     * @return Bridge word index, or null if it is disabled
+     */
+    public BridgeIndex getBridgeIndex() {
+        if (bridgeIndexBudget <= 0) {
+            return null;
+        }
+        GraphSnapshot snapshot = snapshot();
+        if (bridgeIndexSnapshot != snapshot) {
+            bridgeIndex = new BridgeIndex(snapshot, bridgeIndexBudget);
+            bridgeIndexSnapshot = snapshot;
+        }
+        return bridgeIndex;
+    }
+
     /**
      * Generate new text based on bridge words
      * @param inputText Input text
      * @return Newly generated text
      */
     public String generateNewText(String inputText) {
+        return generateNewText(snapshot(), bridgeWordEngine(), currentReachabilityIndex(), getBridgeIndex(),
+                inputText, random);
+    }
+
+    /**
+     * Generate new text based on bridge words. Only reads the given structures, so it can
+     * run on several threads at once as long as each has its own random generator.
+     * @param snapshot Graph snapshot
+     * @param engine Bridge word engine of the snapshot
+     * @param index Reachability index of the snapshot, or null
+     * @param bridgeIndex Precomputed bridge words of the snapshot, or null
+     * @param inputText Input text
+     * @param random Random generator choosing among several bridge words
+     * @return Newly generated text
+     */
+    private static String generateNewText(GraphSnapshot snapshot, BridgeWordEngine engine,
+                                          ReachabilityIndex index, BridgeIndex bridgeIndex,
+                                          String inputText, Random random) {
         // Process input text, replace non-alphabetic characters with spaces
-        String processedText = inputText.replaceAll("[^a-zA-Z]", " ");
+        String processedText = NON_LETTERS.matcher(inputText).replaceAll(" ");
         // Replace multiple consecutive spaces with a single space
-        processedText = processedText.replaceAll("\\s+", " ").trim();
+        processedText = SPACES.matcher(processedText).replaceAll(" ").trim();
         
         // Split text by spaces to get all words
         String[] words = processedText.split(" ");
@@ -161,21 +394,12 @@ public class WordGraph {
             newText.append(currentWord).append(" ");
             
             // Find bridge words
-            List<String> bridgeWords = new ArrayList<>();
-            
-            // Get all neighbors of current word
-            Map<String, Integer> neighbors = graph.getEdges(currentWord);
-            
-            // For each neighbor of current word, check if it also points to next word
-            for (String potentialBridge : neighbors.keySet()) {
-                if (graph.getEdgeWeight(potentialBridge, nextWord) > 0) {
-                    bridgeWords.add(potentialBridge);
-                }
-            }
+            int[] bridges = findBridges(engine, index, bridgeIndex,
+                    snapshot.getNodeId(currentWord), snapshot.getNodeId(nextWord));
             
             // If bridge words exist, randomly select one and add to new text
-            if (!bridgeWords.isEmpty()) {
-                String randomBridge = bridgeWords.get(random.nextInt(bridgeWords.size()));
+            if (bridges.length > 0) {
+                String randomBridge = snapshot.getWord(bridges[random.nextInt(bridges.length)]);
                 newText.append(randomBridge).append(" ");
             }
         }
@@ -187,7 +411,116 @@ public class WordGraph {
         
         return newText.toString();
     }
+
+    /**
+     * Generate new text for every line of a file, or of all files in a directory or matching
+     * a glob pattern, and write the results in input order, one line per input line.
+     * Lines are read in batches, and the lines of a batch are processed in parallel against
+     * the current snapshot. Line i (counting from 0 over all files) uses its own random
+     * generator seeded by mixing seed and i, so the output depends only on the input and the
+     * seed, not on the number of threads.
+     * @param pathOrGlob Input file, directory or glob pattern
+     * @param out Destination of the generated lines
+     * @param seed Base seed of the random generators
+     * @return Number of lines processed
+     * @throws IOException Exception reading the input or writing the output, or no input files
+     */
+    public long generateNewTexts(String pathOrGlob, Writer out, long seed) throws IOException {
+        return generateNewTexts(ParallelGraphLoader.resolveFiles(pathOrGlob), out, seed);
+    }
+
+    /**
+     * Generate new text for every line of the input files and write it to an output file.
+     * The output file is left out of the inputs if the directory or pattern includes it, so
+     * it is never read back while it is being written.
+     * @param pathOrGlob Input file, directory or glob pattern
+     * @param outputPath Output file path
+     * @param seed Base seed of the random generators
+     * @return Number of lines processed
+     * @throws IOException Exception reading the input or writing the output, or no input files
+     */
+    public long generateNewTexts(String pathOrGlob, String outputPath, long seed) throws IOException {
+        List<Path> files = new ArrayList<>(ParallelGraphLoader.resolveFiles(pathOrGlob));
+        Path output = Paths.get(outputPath);
+        if (Files.exists(output)) {
+            Iterator<Path> iterator = files.iterator();
+            while (iterator.hasNext()) {
+                Path file = iterator.next();
+                if (Files.exists(file) && Files.isSameFile(file, output)) {
+                    iterator.remove();
+                }
+            }
+        }
+        if (files.isEmpty()) {
+            throw new IOException("No input files for '" + pathOrGlob + "' besides the output file");
+        }
+        try (Writer writer = new BufferedWriter(new FileWriter(outputPath))) {
+            return generateNewTexts(files, writer, seed);
+        }
+    }
+
+    private long generateNewTexts(List<Path> files, Writer out, long seed) throws IOException {
+        GraphSnapshot snapshot = snapshot();
+        BridgeWordEngine engine = bridgeWordEngine();
+        ReachabilityIndex index = currentReachabilityIndex();
+        BridgeIndex bridgeIndex = getBridgeIndex();
+
+        String[] batch = new String[BATCH_LINES];
+        String[] results = new String[BATCH_LINES];
+        long lineCount = 0;
+        int nextFile = 0;
+        BufferedReader reader = null;
+        try {
+            int batchSize;
+            do {
+                // Fill the batch, continuing with the next file where one ends
+                batchSize = 0;
+                while (batchSize < BATCH_LINES) {
+                    String line = reader == null ? null : reader.readLine();
+                    if (line != null) {
+                        batch[batchSize++] = line;
+                        continue;
+                    }
+                    if (reader != null) {
+                        reader.close();
+                        reader = null;
+                    }
+                    if (nextFile == files.size()) {
+                        break;
+                    }
+                    reader = new BufferedReader(new FileReader(files.get(nextFile++).toFile()));
+                }
+
+                long firstLine = lineCount;
+                IntStream.range(0, batchSize).parallel().forEach(i -> results[i] = generateNewText(
+                        snapshot, engine, index, bridgeIndex, batch[i], new Random(lineSeed(seed, firstLine + i))));
+                for (int i = 0; i < batchSize; i++) {
+                    out.write(results[i]);
+                    out.write(System.lineSeparator());
+                }
+                lineCount += batchSize;
+            } while (batchSize == BATCH_LINES);
+        } finally {
+            if (reader != null) {
+                reader.close();
+            }
+        }
+        out.flush();
+        return lineCount;
+    }
     
+    /**
+     * Derive the seed of one line with the SplitMix64 finalizer. Random seeded with
+     * consecutive numbers returns nearly the same first values, so the line number
+     * must not be added to the seed directly.
+     */
+    private static long lineSeed(long seed, long line) {
+        long z = seed + (line + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
     /**
      * Calculate shortest path between two words
      * @param word1 Start word
@@ -199,7 +532,8 @@ public class WordGraph {
         word2 = word2.toLowerCase();
         
         // Check if start word is in the graph
-        if (!graph.containsNode(word1)) {
+        GraphSnapshot snapshot = snapshot();
+        if (snapshot.getNodeId(word1) < 0) {
             return "Error: Start word '" + word1 + "' not in graph.";
         }
 
@@ -209,88 +543,107 @@ public class WordGraph {
         }
         
         // Two words mode: check if target word is in graph
-        if (!graph.containsNode(word2)) {
+        if (snapshot.getNodeId(word2) < 0) {
             return "Error: Target word '" + word2 + "' not in graph.";
         }
         
-        // Use modified Dijkstra's algorithm to find all shortest paths
-        Map<String, Double> distances = new HashMap<>(); // Store shortest distance from start to each node
-        Map<String, List<List<String>>> allPaths = new HashMap<>(); // Store all paths for each node
-        PriorityQueue<String> queue = new PriorityQueue<>(Comparator.comparing(distances::get));
-        Set<String> visited = new HashSet<>();
-        
-        // Initialize distances and paths
-        for (String node : graph.getNodes()) {
-            distances.put(node, Double.POSITIVE_INFINITY);
-            allPaths.put(node, new ArrayList<>());
-        }
-        distances.put(word1, 0.0);
-        List<String> initialPath = new ArrayList<>();
-        initialPath.add(word1);
-        allPaths.get(word1).add(initialPath);
-        queue.add(word1);
-        
-        // Modified Dijkstra's algorithm to find all shortest paths
-        while (!queue.isEmpty()) {
-            String current = queue.poll();
-            
-            if (visited.contains(current)) {
-                continue;
-            }
-            
-            visited.add(current);
-            
-            // Check all neighbors
-            Map<String, Integer> neighbors = graph.getEdges(current);
-            for (Map.Entry<String, Integer> neighbor : neighbors.entrySet()) {
-                String neighborNode = neighbor.getKey();
-                double weight = 1.0 / neighbor.getValue();
-                
-                double newDistance = distances.get(current) + weight;
-                
-                // If we found a shorter or equal distance path
-                if (newDistance <= distances.get(neighborNode)) {
-                    if (newDistance < distances.get(neighborNode)) {
-                        // Clear existing paths if we found a shorter distance
-                        allPaths.get(neighborNode).clear();
-                        distances.put(neighborNode, newDistance);
-                        queue.add(neighborNode);
-                    }
-                    
-                    // Add all possible paths through current node
-                    for (List<String> pathToCurrent : allPaths.get(current)) {
-                        List<String> newPath = new ArrayList<>(pathToCurrent);
-                        newPath.add(neighborNode);
-                        allPaths.get(neighborNode).add(newPath);
-                    }
-                }
-            }
+        // Reject unreachable pairs before any search starts
+        int targetId = snapshot.getNodeId(word2);
+        if (!getReachabilityIndex().canReach(snapshot.getNodeId(word1), targetId)) {
+            return "No path exists from '" + word1 + "' to '" + word2 + "'.";
         }
+
+        // Use Dijkstra's algorithm to find all shortest paths
+        ShortestPathTree tree = shortestPathCache.getPathsTo(snapshot, snapshot.getNodeId(word1), targetId);
         
         // If target node has no paths, there's no path
-        if (allPaths.get(word2).isEmpty()) {
+        if (!tree.hasPath(targetId)) {
             return "No path exists from '" + word1 + "' to '" + word2 + "'.";
         }
         
-        // Generate result string with all paths
+        // Generate result string with all paths, listing at most MAX_DISPLAYED_PATHS of them
         StringBuilder result = new StringBuilder();
         result.append("All shortest paths from '").append(word1).append("' to '").append(word2).append("':\n");
         
-        List<List<String>> paths = allPaths.get(word2);
-        for (int i = 0; i < paths.size(); i++) {
-            result.append(i + 1).append(". ");
-            result.append(String.join(" -> ", paths.get(i)));
+        List<List<String>> paths = new ArrayList<>();
+        Iterator<List<String>> pathIterator = tree.paths(targetId);
+        while (pathIterator.hasNext() && paths.size() < MAX_DISPLAYED_PATHS) {
+            paths.add(pathIterator.next());
+            result.append(paths.size()).append(". ");
+            result.append(String.join(" -> ", paths.get(paths.size() - 1)));
             result.append("\n");
         }
-        result.append("Path length: ").append(String.format("%.4f", distances.get(word2)));
+        long pathCount = tree.getPathCount(targetId);
+        if (pathCount > paths.size()) {
+            result.append("... ").append(pathCount == Long.MAX_VALUE ? "too many" : String.valueOf(pathCount - paths.size()))
+                    .append(" more shortest paths not shown\n");
+        }
+        result.append("Path length: ").append(String.format("%.4f", tree.getDistance(targetId)));
         
         // Visualize all paths in different colors
         String outputPath = "shortest_paths.png";
-        GraphVisualizer.visualizeMultiplePaths(graph, paths, outputPath);
+        GraphVisualizer.visualizeMultiplePaths(snapshot, paths, outputPath);
         
         return result.toString();
     }
 
+    /**
+     * Enumerate simple paths between two words in order of increasing length.
+     * Paths are found one at a time as the iterator is advanced, so a caller that stops
+     * after K paths pays only for those.
+     * @param word1 Start word
+     * @param word2 Target word
+     * @return Lazy path iterator, or null if either word is not in the graph
+     */
+    public KShortestPaths kShortestPaths(String word1, String word2) {
+        GraphSnapshot snapshot = snapshot();
+        int startId = snapshot.getNodeId(word1.toLowerCase());
+        int targetId = snapshot.getNodeId(word2.toLowerCase());
+        if (startId < 0 || targetId < 0) {
+            return null;
+        }
+        return new KShortestPaths(snapshot, startId, targetId);
+    }
+
+    /**
+     * Calculate the K shortest simple paths between two words, including paths longer than the shortest
+     * @param word1 Start word
+     * @param word2 Target word
+     * @param k Maximum number of paths, at least 1
+     * @return Description of the paths in order of length
+     */
+    public String calcKShortestPaths(String word1, String word2, int k) {
+        if (k < 1) {
+            return "Error: K must be at least 1.";
+        }
+        word1 = word1.toLowerCase();
+        word2 = word2.toLowerCase();
+        GraphSnapshot snapshot = snapshot();
+        if (snapshot.getNodeId(word1) < 0) {
+            return "Error: Start word '" + word1 + "' not in graph.";
+        }
+        if (snapshot.getNodeId(word2) < 0) {
+            return "Error: Target word '" + word2 + "' not in graph.";
+        }
+
+        if (!getReachabilityIndex().canReach(snapshot.getNodeId(word1), snapshot.getNodeId(word2))) {
+            return "No path exists from '" + word1 + "' to '" + word2 + "'.";
+        }
+        KShortestPaths paths = kShortestPaths(word1, word2);
+        if (!paths.hasNext()) {
+            return "No path exists from '" + word1 + "' to '" + word2 + "'.";
+        }
+        StringBuilder result = new StringBuilder();
+        result.append("Up to ").append(k).append(" shortest paths from '").append(word1)
+                .append("' to '").append(word2).append("':\n");
+        for (int i = 1; i <= k && paths.hasNext(); i++) {
+            List<String> path = paths.next();
+            result.append(i).append(". ").append(String.join(" -> ", path));
+            result.append(String.format(" (length %.4f)", paths.getLastCost())).append("\n");
+        }
+        return result.toString();
+    }
+
     /**
      * Calculate shortest paths from one word to all other words
      * @param startWord Start word
@@ -298,144 +651,166 @@ public class WordGraph {
      */
     private String calcShortestPathsToAll(String startWord) {
         StringBuilder result = new StringBuilder();
-        result.append("Shortest paths from '").append(startWord).append("' to all other words:\n\n");
-        
-        // Get all nodes except the start word
-        Set<String> nodes = new HashSet<>(graph.getNodes());
-        nodes.remove(startWord);
-        
-        if (nodes.isEmpty()) {
-            return "No other words in the graph to find paths to.";
+        try {
+            writeShortestPathsToAll(startWord, result);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // StringBuilder doesn't throw
         }
+        return result.toString();
+    }
 
-        // Sort nodes alphabetically for better readability
-        List<String> sortedNodes = new ArrayList<>(nodes);
-        Collections.sort(sortedNodes);
+    /**
+     * Write the shortest path from one word to every other reachable word, in alphabetical order.
+     * Dijkstra runs once and every path is read from the resulting tree; the output is
+     * written as it is produced, so it can go straight to a console or file on large graphs.
+     * @param startWord Start word
+     * @param out Destination of the description
+     * @throws IOException Exception writing to the destination
+     */
+    public void writeShortestPathsToAll(String startWord, Appendable out) throws IOException {
+        startWord = startWord.toLowerCase();
+        GraphSnapshot snapshot = snapshot();
+        int startId = snapshot.getNodeId(startWord);
+        if (startId < 0) {
+            out.append("Error: Start word '").append(startWord).append("' not in graph.");
+            return;
+        }
+        if (snapshot.getNodeCount() == 1) {
+            out.append("No other words in the graph to find paths to.");
+            return;
+        }
+
+        ShortestPathTree tree = shortestPathCache.getTree(snapshot, startId);
         
-        // Calculate paths to each word
-        int pathCount = 0;
-        for (String endWord : sortedNodes) {
-            // Calculate path without showing the graph visualization
-            String pathResult = findShortestPath(startWord, endWord);
-            if (!pathResult.startsWith("No path")) {
-                pathCount++;
-                result.append(pathCount).append(". To '").append(endWord).append("':\n");
-                result.append(pathResult).append("\n\n");
+        // Sort reachable nodes alphabetically for better readability
+        List<String> sortedNodes = new ArrayList<>();
+        for (int id = 0; id < snapshot.getNodeCount(); id++) {
+            if (id != startId && tree.hasPath(id)) {
+                sortedNodes.add(snapshot.getWord(id));
             }
         }
-        
-        if (pathCount == 0) {
-            return "No paths found from '" + startWord + "' to any other word.";
+        if (sortedNodes.isEmpty()) {
+            out.append("No paths found from '").append(startWord).append("' to any other word.");
+            return;
         }
+        Collections.sort(sortedNodes);
         
-        return result.toString();
+        out.append("Shortest paths from '").append(startWord).append("' to all other words:\n\n");
+        int pathCount = 0;
+        for (String endWord : sortedNodes) {
+            int endId = snapshot.getNodeId(endWord);
+            pathCount++;
+            out.append(String.valueOf(pathCount)).append(". To '").append(endWord).append("':\n");
+            out.append(String.join(" -> ", tree.getFirstPath(endId)));
+            out.append("\nPath length: ").append(String.format("%.4f", tree.getDistance(endId))).append("\n\n");
+        }
     }
 
     /**
-     * Helper method to find shortest path between two words without visualization
-     * @param word1 Start word
-     * @param word2 Target word
-     * @return Path description
-     */
-    private String findShortestPath(String word1, String word2) {
-        // Use modified Dijkstra's algorithm to find shortest path
-        Map<String, Double> distances = new HashMap<>();
-        Map<String, List<List<String>>> allPaths = new HashMap<>();
-        PriorityQueue<String> queue = new PriorityQueue<>(Comparator.comparing(distances::get));
-        Set<String> visited = new HashSet<>();
-        
-        // Initialize
-        for (String node : graph.getNodes()) {
-            distances.put(node, Double.POSITIVE_INFINITY);
-            allPaths.put(node, new ArrayList<>());
-        }
-        distances.put(word1, 0.0);
-        List<String> initialPath = new ArrayList<>();
-        initialPath.add(word1);
-        allPaths.get(word1).add(initialPath);
-        queue.add(word1);
+     * Get the cache of shortest path trees, for example to read its hit and miss counts
+     * @return Shortest path cache
+     */
+    public ShortestPathCache getShortestPathCache() {
+        return shortestPathCache;
+    }
+
+    /**
+     * Calculate the TF-IDF value of every word in one sweep over the CSR rows.
+     * TF is the total weight of a word's in- and out-edges; IDF is based on the number
+     * of distinct other words it is connected to.
+     * @param snapshot Graph snapshot
+     * @return TF-IDF value of every node, indexed by node ID
+     */
+    private static double[] calculateTFIDF(GraphSnapshot snapshot) {
+        int n = snapshot.getNodeCount();
+        int[] outOffsets = snapshot.getOutOffsets();
+        int[] outTargets = snapshot.getOutTargets();
+        int[] inOffsets = snapshot.getInOffsets();
+        int[] inSources = snapshot.getInSources();
+        int[] outSums = snapshot.getOutWeightSums();
+        int[] inSums = snapshot.getInWeightSums();
         
-        // Dijkstra's algorithm
-        while (!queue.isEmpty()) {
-            String current = queue.poll();
-            if (visited.contains(current)) continue;
-            visited.add(current);
+        // Calculate Inverse Document Frequency (IDF) relative to the number of nodes
+        double totalNodes = n;
+        double[] tfidf = new double[n];
+        for (int id = 0; id < n; id++) {
+            // Calculate Term Frequency (TF) from the sums of all edge weights
+            double tf = (double) inSums[id] + outSums[id];
             
-            Map<String, Integer> neighbors = graph.getEdges(current);
-            for (Map.Entry<String, Integer> neighbor : neighbors.entrySet()) {
-                String neighborNode = neighbor.getKey();
-                double weight = 1.0 / neighbor.getValue();
-                
-                double newDistance = distances.get(current) + weight;
-                if (newDistance <= distances.get(neighborNode)) {
-                    if (newDistance < distances.get(neighborNode)) {
-                        allPaths.get(neighborNode).clear();
-                        distances.put(neighborNode, newDistance);
-                        queue.add(neighborNode);
-                    }
-                    for (List<String> pathToCurrent : allPaths.get(current)) {
-                        List<String> newPath = new ArrayList<>(pathToCurrent);
-                        newPath.add(neighborNode);
-                        allPaths.get(neighborNode).add(newPath);
-                    }
+            // Count how many nodes are connected to this word, merging the sorted in- and out-rows
+            int p = outOffsets[id];
+            int q = inOffsets[id];
+            double nodesWithWord = 0;
+            while (p < outOffsets[id + 1] || q < inOffsets[id + 1]) {
+                int node;
+                if (q == inOffsets[id + 1] || (p < outOffsets[id + 1] && outTargets[p] < inSources[q])) {
+                    node = outTargets[p++];
+                } else if (p == outOffsets[id + 1] || inSources[q] < outTargets[p]) {
+                    node = inSources[q++];
+                } else {
+                    node = outTargets[p++];
+                    q++;
                 }
+                if (node != id) {
+                    nodesWithWord++;
+                }
+            }
+            
+            // Avoid division by zero
+            if (nodesWithWord == 0) {
+                nodesWithWord = 1;
             }
+            
+            double idf = Math.log(totalNodes / nodesWithWord);
+            tfidf[id] = tf * idf;
         }
-        
-        if (allPaths.get(word2).isEmpty()) {
-            return "No path exists from '" + word1 + "' to '" + word2 + "'.";
+        return tfidf;
+    }
+
+    /**
+     * Get the TF-IDF vector of the current graph, computed once per snapshot
+     * @return TF-IDF value of every node, indexed by node ID
+     */
+    private double[] tfidf() {
+        GraphSnapshot snapshot = snapshot();
+        if (tfidfSnapshot != snapshot) {
+            tfidf = calculateTFIDF(snapshot);
+            tfidfSnapshot = snapshot;
         }
-        
-        StringBuilder result = new StringBuilder();
-        List<List<String>> paths = allPaths.get(word2);
-        result.append(String.join(" -> ", paths.get(0)));
-        result.append("\nPath length: ").append(String.format("%.4f", distances.get(word2)));
-        
-        return result.toString();
+        return tfidf;
     }
     
     /**
-     * Calculate TF-IDF value for a word
-     * @param word Word to calculate for
-     * @return TF-IDF value
+     * Get the reachability index of the current graph, built once per snapshot
+     * @return Reachability index
      */
-    private double calculateTFIDF(String word) {
-        // Calculate Term Frequency (TF)
-        double tf = 0.0;
-        Map<String, Integer> incomingEdges = graph.getIncomingEdges(word);
-        Map<String, Integer> outgoingEdges = graph.getEdges(word);
-        
-        // Sum up all edge weights
-        for (int weight : incomingEdges.values()) {
-            tf += weight;
-        }
-        for (int weight : outgoingEdges.values()) {
-            tf += weight;
+    public ReachabilityIndex getReachabilityIndex() {
+        GraphSnapshot snapshot = snapshot();
+        if (reachabilitySnapshot != snapshot) {
+            reachability = new ReachabilityIndex(snapshot);
+            reachabilitySnapshot = snapshot;
         }
-        
-        // Calculate Inverse Document Frequency (IDF)
-        double totalNodes = graph.getNodes().size();
-        double nodesWithWord = 0;
-        
-        // Count how many nodes are connected to this word
-        for (String node : graph.getNodes()) {
-            if (!node.equals(word)) {
-                if (graph.getEdgeWeight(node, word) > 0 || graph.getEdgeWeight(word, node) > 0) {
-                    nodesWithWord++;
-                }
-            }
-        }
-        
-        // Avoid division by zero
-        if (nodesWithWord == 0) {
-            nodesWithWord = 1;
-        }
-        
-        double idf = Math.log(totalNodes / nodesWithWord);
-        
-        return tf * idf;
+        return reachability;
     }
-    
+
+    /**
+     * Get the reachability index only if it was already built for the current snapshot.
+     * Cheap queries use it when available but don't pay for building it.
+     * @return Reachability index, or null
+     */
+    private ReachabilityIndex currentReachabilityIndex() {
+        return reachabilitySnapshot == snapshot() ? reachability : null;
+    }
+
+    /**
+     * Check if a word is in the graph
+     * @param word Word to check
+     * @return true if the word is a node of the graph
+     */
+    public boolean containsNode(String word) {
+        return snapshot().getNodeId(word.toLowerCase()) >= 0;
+    }
+
     /**
      * Calculate PageRank value for a word
      * @param word Word to calculate PR value for
@@ -445,143 +820,201 @@ public class WordGraph {
         word = word.toLowerCase();
         
         // Check if word is in graph
-        if (!graph.containsNode(word)) {
+        int id = snapshot().getNodeId(word);
+        if (id < 0) {
             return 0.0;
         }
-        
-        // Get all nodes in graph
-        Set<String> nodes = graph.getNodes();
-        int n = nodes.size();
-        
-        // Calculate TF-IDF for all nodes
-        Map<String, Double> tfidf = new HashMap<>();
-        double totalTFIDF = 0.0;
-        for (String node : nodes) {
-            double value = calculateTFIDF(node);
-            tfidf.put(node, value);
-            totalTFIDF += value;
+        return getPageRankResult().getRank(id);
+    }
+
+    /**
+     * Get the PageRank values of the current graph with the iteration count, final residual
+     * and wall time of their computation.
+     * The snapshot is replaced whenever the graph version changes, so the vector is
+     * computed once per version and shared by all lookups until the next change.
+     * @return PageRank result
+     */
+    public PageRankResult getPageRankResult() {
+        GraphSnapshot snapshot = snapshot();
+        if (pageRankSnapshot != snapshot) {
+            // Nodes with high TF-IDF get a higher random jump probability and a higher initial PR value.
+            // After a change to the same graph, node IDs are unchanged and the old ranks are a closer start
+            double[] startRanks = pageRanks != null && graph != null && pageRankGraph == graph ? pageRanks.getRanks() : null;
+            pageRanks = new PageRankEngine(snapshot, tfidf(), DAMPING_FACTOR).run(MAX_ITERATIONS, pageRankTolerance, startRanks);
+            pageRankSnapshot = snapshot;
+            pageRankGraph = graph;
         }
-        
-        // Initialize PR values using normalized TF-IDF
-        Map<String, Double> pr = new HashMap<>();
-        for (String node : nodes) {
-            // If totalTFIDF is 0, use uniform distribution
-            if (totalTFIDF == 0) {
-                pr.put(node, 1.0 / n);
-            } else {
-                pr.put(node, tfidf.get(node) / totalTFIDF);
+        return pageRanks;
+    }
+
+    /**
+     * Get the K words with the highest PageRank.
+     * The rank vector is computed once and the best K are selected with a bounded
+     * min-heap, in O(V log K) without sorting all words. Only the node IDs of the
+     * selected words are kept; each result is created as the iterator reaches it.
+     * @param k Number of words to return, at least 1
+     * @return Words with their PR value, highest first; ties in node ID order
+     * @throws IllegalArgumentException If k is below 1
+     */
+    public Iterator<Map.Entry<String, Double>> calcTopPageRank(int k) {
+        if (k < 1) {
+            throw new IllegalArgumentException("K must be at least 1: " + k);
+        }
+        GraphSnapshot snapshot = snapshot();
+        double[] ranks = getPageRankResult().getRanks();
+        Comparator<Integer> byRank = (a, b) -> ranks[a] != ranks[b] ? Double.compare(ranks[a], ranks[b]) : Integer.compare(b, a);
+        // K may exceed the number of words, so size the heap by the number of results it can hold
+        int limit = Math.min(k, ranks.length);
+        PriorityQueue<Integer> heap = new PriorityQueue<>(Math.max(1, limit), byRank);
+        for (int id = 0; id < ranks.length && limit > 0; id++) {
+            if (heap.size() < limit) {
+                heap.add(id);
+            } else if (ranks[id] > ranks[heap.peek()]) {
+                // Words with the same rank keep the earliest node ID, so only a higher rank replaces the weakest
+                heap.poll();
+                heap.add(id);
             }
         }
-        
-        // PageRank iteration calculation
-        for (int i = 0; i < MAX_ITERATIONS; i++) {
-            Map<String, Double> newPr = new HashMap<>();
-            double sinkPR = 0.0; // 累积所有出度为0的节点的PR值
-            
-            // First pass: identify sink nodes (nodes with no outgoing edges)
-            for (String node : nodes) {
-                Map<String, Integer> outEdges = graph.getEdges(node);
-                if (outEdges.isEmpty()) {
-                    sinkPR += pr.get(node);
-                }
+
+        // The weakest word is on top of the heap, so fill the IDs from the back
+        int[] top = new int[heap.size()];
+        for (int i = top.length - 1; i >= 0; i--) {
+            top[i] = heap.poll();
+        }
+        return new Iterator<Map.Entry<String, Double>>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < top.length;
             }
-            
-            // Calculate new PR value for each node
-            for (String node : nodes) {
-                // Get all nodes pointing to this node
-                Map<String, Integer> incomingNodes = graph.getIncomingEdges(node);
-                
-                double sum = 0.0;
-                // Add contribution from nodes with outgoing edges
-                for (Map.Entry<String, Integer> entry : incomingNodes.entrySet()) {
-                    String incomingNode = entry.getKey();
-                    int weight = entry.getValue();
-                    
-                    // Skip sink nodes as they are handled separately
-                    Map<String, Integer> outEdges = graph.getEdges(incomingNode);
-                    if (outEdges.isEmpty()) {
-                        continue;
-                    }
-                    
-                    // Get total outgoing edge weight for incomingNode
-                    int outSum = 0;
-                    for (int outWeight : outEdges.values()) {
-                        outSum += outWeight;
-                    }
-                    
-                    // Calculate contribution using edge weights
-                    sum += pr.get(incomingNode) * ((double) weight / outSum);
-                }
-                
-                // Add contribution from sink nodes (distributed equally)
-                sum += sinkPR / n;
-                
-                // New PR value = (1-d)/n + d*sum
-                // For nodes with high TF-IDF, increase their random jump probability
-                double randomJumpProb = (1 - DAMPING_FACTOR) * (tfidf.get(node) / totalTFIDF);
-                if (totalTFIDF == 0) {
-                    randomJumpProb = (1 - DAMPING_FACTOR) / n;
+
+            @Override
+            public Map.Entry<String, Double> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
                 }
-                double newRank = randomJumpProb + DAMPING_FACTOR * sum;
-                newPr.put(node, newRank);
+                int id = top[next++];
+                return new AbstractMap.SimpleImmutableEntry<>(snapshot.getWord(id), ranks[id]);
+            }
+        };
+    }
+
+    /**
+     * Calculate PageRank personalized to one or more seed words, such as the words around "error".
+     * Uses local forward push, so only the neighbourhood reached from the seeds is visited.
+     * @param seedWords Seed words; words not in the graph are ignored
+     * @return Reached words with their approximate PR value, highest first
+     */
+    public Map<String, Double> calcPersonalizedPageRank(String... seedWords) {
+        return calcPersonalizedPageRank(Arrays.asList(seedWords), DEFAULT_PUSH_EPSILON);
+    }
+
+    /**
+     * Calculate PageRank personalized to one or more seed words
+     * @param seedWords Seed words; words not in the graph are ignored
+     * @param epsilon Residual threshold per unit of out-weight; smaller values are more
+     *                accurate and visit more of the graph
+     * @return Reached words with their approximate PR value, highest first
+     */
+    public Map<String, Double> calcPersonalizedPageRank(Collection<String> seedWords, double epsilon) {
+        GraphSnapshot snapshot = snapshot();
+        Set<Integer> seedIds = new LinkedHashSet<>();
+        for (String word : seedWords) {
+            int id = snapshot.getNodeId(word.toLowerCase());
+            if (id >= 0) {
+                seedIds.add(id);
             }
-            
-            // Update PR values
-            pr = newPr;
         }
-        
-        // Return PR value for specified word
-        return pr.get(word);
+        Map<String, Double> result = new LinkedHashMap<>();
+        if (seedIds.isEmpty()) {
+            return result;
+        }
+
+        int[] seeds = new int[seedIds.size()];
+        int i = 0;
+        for (int id : seedIds) {
+            seeds[i++] = id;
+        }
+        PersonalizedPageRank ppr = new PersonalizedPageRank(snapshot, seeds, DAMPING_FACTOR, epsilon);
+        ppr.run();
+
+        Integer[] order = new Integer[ppr.getTouchedCount()];
+        for (i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(ppr.getEstimate(b), ppr.getEstimate(a)));
+        for (int index : order) {
+            if (ppr.getEstimate(index) > 0) {
+                result.put(snapshot.getWord(ppr.getNode(index)), ppr.getEstimate(index));
+            }
+        }
+        return result;
     }
-    
+
+    /**
+     * Set the convergence tolerance of PageRank. Iteration stops once the L1 change of the
+     * rank vector drops below the tolerance, or after MAX_ITERATIONS rounds.
+     * @param tolerance Tolerance; 0 always runs MAX_ITERATIONS rounds
+     */
+    public void setPageRankTolerance(double tolerance) {
+        if (tolerance < 0 || Double.isNaN(tolerance)) {
+            throw new IllegalArgumentException("Tolerance must not be negative: " + tolerance);
+        }
+        if (tolerance != pageRankTolerance) {
+            pageRankTolerance = tolerance;
+            pageRankSnapshot = null;
+        }
+    }
+
     /**
      * Random walk on the graph
      * @return Walk path
      */
     public String randomWalk() {
         // Check if graph is empty
-        if (graph.getNodes().isEmpty()) {
+        GraphSnapshot snapshot = snapshot();
+        if (snapshot.getNodeCount() == 0) {
             return "Graph is empty, cannot perform random walk.";
         }
         
         // Randomly select a start node
-        List<String> nodes = new ArrayList<>(graph.getNodes());
-        String currentNode = nodes.get(random.nextInt(nodes.size()));
+        int currentNode = random.nextInt(snapshot.getNodeCount());
         
         List<String> path = new ArrayList<>();
-        path.add(currentNode);
+        path.add(snapshot.getWord(currentNode));
         
-        // Set to detect repeated edges
-        Set<String> visitedEdges = new HashSet<>();
+        // Set to detect repeated edges, each packed as <source ID, target ID>. A walk never
+        // returns to a component it has left, so with the reachability index only edges
+        // inside a strongly connected component need to be remembered
+        Set<Long> visitedEdges = new HashSet<>();
+        ReachabilityIndex index = currentReachabilityIndex();
+        int[] offsets = snapshot.getOutOffsets();
+        int[] targets = snapshot.getOutTargets();
         
         boolean done = false;
         while (!done) {
-            // Get all outgoing edges from current node
-            Map<String, Integer> neighbors = graph.getEdges(currentNode);
-            
             // If no outgoing edges, end walk
-            if (neighbors.isEmpty()) {
+            int degree = snapshot.getOutDegree(currentNode);
+            if (degree == 0) {
                 done = true;
                 continue;
             }
             
             // Randomly select an outgoing edge
-            List<String> neighborNodes = new ArrayList<>(neighbors.keySet());
-            String nextNode = neighborNodes.get(random.nextInt(neighborNodes.size()));
+            int nextNode = targets[offsets[currentNode] + random.nextInt(degree)];
             
-            // Check if edge has been visited
-            String edge = currentNode + "->" + nextNode;
-            if (visitedEdges.contains(edge)) {
+            // Check if edge has been visited, and record it otherwise
+            long edge = ((long) currentNode << 32) | nextNode;
+            boolean repeatable = index == null || index.getComponent(currentNode) == index.getComponent(nextNode);
+            if (repeatable && !visitedEdges.add(edge)) {
                 done = true;
                 continue;
             }
             
-            // Record visited edge
-            visitedEdges.add(edge);
-            
             // Update current node and add to path
             currentNode = nextNode;
-            path.add(currentNode);
+            path.add(snapshot.getWord(currentNode));
         }
         
         // Convert path to text
@@ -619,14 +1052,29 @@ public class WordGraph {
                 filePath = scanner.nextLine();
             }
             
-            // Read file and build graph
-            System.out.println("Building graph from file '" + filePath + "'...");
-            wordGraph.buildGraphFromFile(filePath);
-            System.out.println("Graph built successfully!");
-            
-            // Show directed graph
-            System.out.println("\nShowing directed graph:");
-            wordGraph.showDirectedGraph(wordGraph.graph, scanner);
+            if (filePath.endsWith(GraphFile.EXTENSION)) {
+                // Load a previously saved graph without re-tokenizing the source text
+                System.out.println("Loading graph from file '" + filePath + "'...");
+                wordGraph.loadGraph(filePath);
+                System.out.println("Graph loaded successfully! (" + wordGraph.snapshot().getNodeCount() + " words)");
+            } else {
+                // Read file and build graph
+                System.out.println("Building graph from file '" + filePath + "'...");
+                if (new File(filePath).isDirectory() || ParallelGraphLoader.isGlob(filePath)) {
+                    System.out.print("Link the last word of each file to the first word of the next? (y/N): ");
+                    boolean linkFiles = scanner.nextLine().trim().equalsIgnoreCase("y");
+                    wordGraph.buildGraphFromFiles(filePath, linkFiles);
+                } else if (new File(filePath).length() >= PARALLEL_LOAD_THRESHOLD) {
+                    wordGraph.buildGraphFromFileParallel(filePath);
+                } else {
+                    wordGraph.buildGraphFromFile(filePath);
+                }
+                System.out.println("Graph built successfully!");
+                
+                // Show directed graph
+                System.out.println("\nShowing directed graph:");
+                wordGraph.showDirectedGraph(wordGraph.graph(), scanner);
+            }
             
             // Main menu
             boolean exit = false;
@@ -638,14 +1086,18 @@ public class WordGraph {
                 System.out.println("4. Calculate PageRank value");
                 System.out.println("5. Random walk");
                 System.out.println("6. Show directed graph again");
+                System.out.println("7. Save graph to binary file");
+                System.out.println("8. Append text to graph");
+                System.out.println("9. Show top-K PageRank words");
+                System.out.println("10. Generate new text for a file or directory");
                 System.out.println("0. Exit program");
                 
-                System.out.print("Enter option (0-6): ");
+                System.out.print("Enter option (0-10): ");
                 int choice;
                 try {
                     choice = Integer.parseInt(scanner.nextLine());
                 } catch (NumberFormatException e) {
-                    System.out.println("Invalid input, please enter a number between 0-6.");
+                    System.out.println("Invalid input, please enter a number between 0-10.");
                     continue;
                 }
                 
@@ -670,7 +1122,8 @@ public class WordGraph {
                         break;
                     case 3:
                         System.out.println("Enter one word to show all paths from that word,");
-                        System.out.println("or enter two words separated by space to find shortest path between them:");
+                        System.out.println("or enter two words separated by space to find shortest path between them,");
+                        System.out.println("or two words and a number K to list the K shortest paths:");
                         String input = scanner.nextLine().trim().toLowerCase();
                         String[] words = input.split("\\s+");
                         
@@ -678,16 +1131,26 @@ public class WordGraph {
                             System.out.println("Error: Please enter at least one word.");
                             break;
                         } else if (words.length == 1) {
-                            // 单词模式：显示从该单词到所有其他单词的最短路径
-                            String shortestPath = wordGraph.calcShortestPath(words[0], "");
-                            System.out.println(shortestPath);
+                            // 单词模式：显示从该单词到所有其他单词的最短路径，边计算边输出
+                            wordGraph.writeShortestPathsToAll(words[0], System.out);
+                            System.out.println();
                         } else if (words.length == 2) {
                             // 两个单词模式：显示两个单词之间的最短路径
                             String shortestPath = wordGraph.calcShortestPath(words[0], words[1]);
                             System.out.println(shortestPath);
+                        } else if (words.length == 3) {
+                            // 第三个参数 K：按长度列出前 K 条简单路径
+                            int pathLimit;
+                            try {
+                                pathLimit = Integer.parseInt(words[2]);
+                            } catch (NumberFormatException e) {
+                                System.out.println("Invalid input, K must be a number between 1 and " + Integer.MAX_VALUE + ".");
+                                break;
+                            }
+                            System.out.println(wordGraph.calcKShortestPaths(words[0], words[1], pathLimit));
                         }
                         else {
-                            System.out.println("Error: Please enter one word or two words separated by space.");
+                            System.out.println("Error: Please enter one word, two words, or two words and a number.");
                         }
                         break;
                     case 4:
@@ -695,6 +1158,10 @@ public class WordGraph {
                         String wordForPR = scanner.nextLine();
                         Double pr = wordGraph.calcPageRank(wordForPR);
                         System.out.println("PageRank value for word '" + wordForPR + "': " + String.format("%.4f", pr));
+                        // Only report the run if there was one; unknown words don't need PageRank
+                        if (wordGraph.containsNode(wordForPR)) {
+                            System.out.println("(" + wordGraph.getPageRankResult() + ")");
+                        }
                         break;
                     case 5:
                         System.out.println("Starting random walk...");
@@ -703,7 +1170,78 @@ public class WordGraph {
                         System.out.println(walkResult);
                         break;
                     case 6:
-                        wordGraph.showDirectedGraph(wordGraph.graph, scanner);
+                        wordGraph.showDirectedGraph(wordGraph.graph(), scanner);
+                        break;
+                    case 7:
+                        System.out.print("Enter output file path (default: graph" + GraphFile.EXTENSION + "): ");
+                        String graphPath = scanner.nextLine().trim();
+                        if (graphPath.isEmpty()) {
+                            graphPath = "graph" + GraphFile.EXTENSION;
+                        }
+                        try {
+                            wordGraph.saveGraph(graphPath);
+                            System.out.println("Graph saved to '" + graphPath + "'");
+                        } catch (IOException e) {
+                            System.err.println("Error saving graph: " + e.getMessage());
+                        }
+                        break;
+                    case 8:
+                        System.out.print("Enter text or text file path to append: ");
+                        String appendInput = scanner.nextLine();
+                        try {
+                            if (new File(appendInput.trim()).isFile()) {
+                                wordGraph.appendFile(appendInput.trim());
+                            } else {
+                                wordGraph.appendText(appendInput);
+                            }
+                            System.out.println("Text appended! (" + wordGraph.graph().getNodeCount() + " words)");
+                        } catch (IOException e) {
+                            System.err.println("Error reading file: " + e.getMessage());
+                        }
+                        break;
+                    case 9:
+                        System.out.print("Enter K (default: 20): ");
+                        String kInput = scanner.nextLine().trim();
+                        int k;
+                        try {
+                            k = kInput.isEmpty() ? 20 : Integer.parseInt(kInput);
+                        } catch (NumberFormatException e) {
+                            k = 0; // Rejected below together with K < 1
+                        }
+                        if (k < 1) {
+                            System.out.println("Invalid input, K must be a number between 1 and " + Integer.MAX_VALUE + ".");
+                            break;
+                        }
+                        Iterator<Map.Entry<String, Double>> topWords = wordGraph.calcTopPageRank(k);
+                        for (int rank = 1; topWords.hasNext(); rank++) {
+                            Map.Entry<String, Double> entry = topWords.next();
+                            System.out.println(String.format("%3d. %-20s %.6f", rank, entry.getKey(), entry.getValue()));
+                        }
+                        System.out.println("(" + wordGraph.getPageRankResult() + ")");
+                        break;
+                    case 10:
+                        System.out.print("Enter input file, directory or glob pattern: ");
+                        String batchInput = scanner.nextLine().trim();
+                        System.out.print("Enter output file path (default: new_text.txt): ");
+                        String batchOutput = scanner.nextLine().trim();
+                        if (batchOutput.isEmpty()) {
+                            batchOutput = "new_text.txt";
+                        }
+                        System.out.print("Enter random seed (default: 0): ");
+                        String seedInput = scanner.nextLine().trim();
+                        long seed;
+                        try {
+                            seed = seedInput.isEmpty() ? 0 : Long.parseLong(seedInput);
+                        } catch (NumberFormatException e) {
+                            System.out.println("Invalid input, please enter a number.");
+                            break;
+                        }
+                        try {
+                            long lines = wordGraph.generateNewTexts(batchInput, batchOutput, seed);
+                            System.out.println(lines + " lines written to '" + batchOutput + "'");
+                        } catch (IOException e) {
+                            System.err.println("Error generating text: " + e.getMessage());
+                        }
                         break;
                     default:
                         System.out.println("Invalid option, please try again.");
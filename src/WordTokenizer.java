@@ -0,0 +1,68 @@
+import java.io.*;
+
+/**
+ * Streaming word tokenizer that scans characters straight from a reader.
+ * Words are maximal runs of ASCII letters and are returned in lowercase;
+ * every other character (including line breaks) acts as a separator.
+ */
+public class WordTokenizer {
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Reader reader;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    // Reused for every word so that only the final String is allocated
+    private final StringBuilder word = new StringBuilder();
+
+    /**
+     * Constructor
+     * @param reader Source of characters, read incrementally
+     */
+    public WordTokenizer(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Check whether a character is part of a word
+     * @param c Character to check
+     * @return true for ASCII letters, false otherwise
+     */
+    public static boolean isLetter(int c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    /**
+     * Convert an ASCII letter to lowercase
+     * @param c ASCII letter
+     * @return Lowercase letter
+     */
+    public static char toLowerCase(int c) {
+        return (char) (c >= 'A' && c <= 'Z' ? c + ('a' - 'A') : c);
+    }
+
+    /**
+     * Read the next word from the stream
+     * @return Next lowercase word, or null at end of input
+     * @throws IOException Reading exception
+     */
+    public String nextWord() throws IOException {
+        word.setLength(0);
+        while (true) {
+            if (position == limit) {
+                limit = reader.read(buffer, 0, BUFFER_SIZE);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return word.length() > 0 ? word.toString() : null;
+                }
+            }
+            char c = buffer[position++];
+            if (isLetter(c)) {
+                word.append(toLowerCase(c));
+            } else if (word.length() > 0) {
+                return word.toString();
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Test of the random bridge word choice of batch text generation.
+ * In the graph of "a x b a y b a z b a w b", the words a and b have the four bridge words
+ * x, y, z and w. Every line "a b" of the input must get one of them with equal probability,
+ * as in interactive generation, so over many lines each must be chosen about equally often.
+ * The output must also be the same for the same seed and differ for another seed.
+ * Usage: java -cp bin BatchTextDistributionTest [lines] [seed]
+ */
+public class BatchTextDistributionTest {
+    public static void main(String[] args) throws IOException {
+        int lines = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 42;
+
+        Path graphFile = Files.createTempFile("batch-distribution-graph", ".txt");
+        Path inputFile = Files.createTempFile("batch-distribution-input", ".txt");
+        WordGraph wordGraph = new WordGraph();
+        String first;
+        String again;
+        String other;
+        try {
+            Files.write(graphFile, Collections.singletonList("a x b a y b a z b a w b"));
+            Files.write(inputFile, Collections.nCopies(lines, "a b"));
+            wordGraph.buildGraphFromFile(graphFile.toString());
+            first = generate(wordGraph, inputFile, seed);
+            again = generate(wordGraph, inputFile, seed);
+            other = generate(wordGraph, inputFile, seed + 1);
+        } finally {
+            Files.delete(graphFile);
+            Files.delete(inputFile);
+        }
+
+        Map<String, Integer> counts = new TreeMap<>();
+        for (String line : first.split(System.lineSeparator())) {
+            String[] words = line.split(" ");
+            counts.merge(words.length == 3 ? words[1] : line, 1, Integer::sum);
+        }
+        System.out.println("Bridge words chosen for " + lines + " lines: " + counts);
+
+        // Each count is binomial with mean lines / 4; allow five standard deviations
+        double expected = lines / 4.0;
+        double tolerance = 5 * Math.sqrt(lines * 0.25 * 0.75);
+        boolean passed = counts.size() == 4;
+        for (String bridge : Arrays.asList("w", "x", "y", "z")) {
+            int count = counts.getOrDefault(bridge, 0);
+            if (Math.abs(count - expected) > tolerance) {
+                System.out.println("'" + bridge + "' chosen " + count + " times, expected " + expected + " +- " + Math.round(tolerance));
+                passed = false;
+            }
+        }
+        if (!first.equals(again)) {
+            System.out.println("The same seed gave different output");
+            passed = false;
+        }
+        if (first.equals(other)) {
+            System.out.println("Another seed gave the same output");
+            passed = false;
+        }
+        System.out.println(passed ? "PASSED" : "FAILED");
+        if (!passed) {
+            System.exit(1);
+        }
+    }
+
+    private static String generate(WordGraph wordGraph, Path inputFile, long seed) throws IOException {
+        StringWriter out = new StringWriter();
+        wordGraph.generateNewTexts(inputFile.toString(), out, seed);
+        return out.toString();
+    }
+}
@@ -0,0 +1,126 @@
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Stress test for ConcurrentDirectedGraph.
+ * Several threads ingest different text streams into one graph at the same time, all
+ * starting together so that they race on the same hot words and edges. The final graph
+ * must hold exactly the edges and weights of a single-threaded build of the same streams.
+ * Usage: java -cp bin ConcurrentDirectedGraphStressTest [threads] [words per stream] [rounds]
+ */
+public class ConcurrentDirectedGraphStressTest {
+    private static final int VOCABULARY = 2000;
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int wordsPerStream = args.length > 1 ? Integer.parseInt(args[1]) : 200000;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        int failures = 0;
+        for (int round = 0; round < rounds; round++) {
+            String[] streams = new String[threads];
+            for (int i = 0; i < threads; i++) {
+                streams[i] = generateText(wordsPerStream, new Random(round * 1000L + i));
+            }
+            DirectedGraph expected = buildSingleThreaded(streams);
+            ConcurrentDirectedGraph actual = buildConcurrently(streams);
+            int mismatches = compare(expected, actual);
+            System.out.println("Round " + (round + 1) + ": " + expected.getNodeCount() + " words, "
+                    + mismatches + " mismatches");
+            if (mismatches > 0) {
+                failures++;
+            }
+        }
+
+        if (failures > 0) {
+            System.out.println("FAILED: " + failures + " of " + rounds + " rounds lost or invented edge weight");
+            System.exit(1);
+        }
+        System.out.println("PASSED");
+    }
+
+    /**
+     * Generate words with a Zipf-like distribution, so that a few hot edges are hit by all threads
+     */
+    private static String generateText(int wordCount, Random random) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < wordCount; i++) {
+            int rank = (int) Math.pow(VOCABULARY, random.nextDouble()) - 1;
+            text.append('w');
+            for (int r = rank; ; r /= 26) {
+                text.append((char) ('a' + r % 26));
+                if (r < 26) {
+                    break;
+                }
+            }
+            text.append(' ');
+        }
+        return text.toString();
+    }
+
+    private static DirectedGraph buildSingleThreaded(String[] streams) throws IOException {
+        DirectedGraph graph = new DirectedGraph();
+        for (String stream : streams) {
+            WordTokenizer tokenizer = new WordTokenizer(new StringReader(stream));
+            String previousWord = tokenizer.nextWord();
+            String currentWord;
+            while (previousWord != null && (currentWord = tokenizer.nextWord()) != null) {
+                graph.addEdge(previousWord, currentWord);
+                previousWord = currentWord;
+            }
+        }
+        return graph;
+    }
+
+    private static ConcurrentDirectedGraph buildConcurrently(String[] streams) throws Exception {
+        ConcurrentDirectedGraph graph = new ConcurrentDirectedGraph();
+        ExecutorService executor = Executors.newFixedThreadPool(streams.length);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (String stream : streams) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    graph.ingest(new StringReader(stream));
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        return graph;
+    }
+
+    /**
+     * Count the edges whose weight differs, in either direction, plus missing or extra words
+     */
+    private static int compare(DirectedGraph expected, ConcurrentDirectedGraph actual) {
+        int mismatches = Math.abs(expected.getNodeCount() - actual.getNodeCount());
+        long expectedTotal = 0;
+        for (String from : expected.getNodes()) {
+            for (Map.Entry<String, Integer> edge : expected.getEdges(from).entrySet()) {
+                expectedTotal += edge.getValue();
+                if (actual.getEdgeWeight(from, edge.getKey()) != edge.getValue()) {
+                    mismatches++;
+                }
+            }
+        }
+        // Edges only present in the concurrent graph show up as extra total weight
+        DirectedGraph copy = actual.toDirectedGraph();
+        long actualTotal = 0;
+        for (String from : copy.getNodes()) {
+            for (int weight : copy.getEdges(from).values()) {
+                actualTotal += weight;
+            }
+        }
+        if (actualTotal != expectedTotal) {
+            mismatches++;
+        }
+        return mismatches;
+    }
+}
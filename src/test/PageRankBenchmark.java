@@ -0,0 +1,145 @@
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Benchmark of the reverse-adjacency index of DirectedGraph on PageRank over about 100k words.
+ * Before the index, finding the in-edges of a word meant probing every node of the graph with
+ * getEdgeWeight, and PageRank did that for every word on every iteration, which is quadratic
+ * in the vocabulary. The benchmark runs the same PageRank iterations on one graph twice, once
+ * probing every node for in-edges and once reading them from getIncomingEdges, and checks that
+ * both give the same ranks. It then times a full calcPageRank run of WordGraph on the same text.
+ * Usage: java -cp bin PageRankBenchmark [vocabulary] [text length] [iterations]
+ */
+public class PageRankBenchmark {
+    private static final double DAMPING_FACTOR = 0.85;
+
+    /**
+     * Way of finding the in-edges of a node
+     */
+    private interface InEdges {
+        double contribution(DirectedGraph graph, int toId, double[] ranks, int[] outSums);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int vocabulary = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        int textLength = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+        int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+
+        // Half uniform, half Zipf-like, so that almost every word occurs and a few are hubs
+        Random random = new Random(42);
+        DirectedGraph graph = new DirectedGraph();
+        Path textFile = Files.createTempFile("pagerank-benchmark", ".txt");
+        try (Writer text = new BufferedWriter(new FileWriter(textFile.toFile()))) {
+            String previousWord = null;
+            for (int i = 0; i < textLength; i++) {
+                int rank = random.nextBoolean()
+                        ? random.nextInt(vocabulary)
+                        : (int) Math.pow(vocabulary, random.nextDouble()) - 1;
+                String currentWord = word(rank);
+                if (previousWord != null) {
+                    graph.addEdge(previousWord, currentWord);
+                }
+                text.write(currentWord);
+                text.write(i % 20 == 19 ? '\n' : ' ');
+                previousWord = currentWord;
+            }
+        }
+        int n = graph.getNodeCount();
+        int[] outSums = new int[n];
+        for (int id = 0; id < n; id++) {
+            for (int weight : graph.getEdges(graph.getWord(id)).values()) {
+                outSums[id] += weight;
+            }
+        }
+        System.out.println("Graph: " + n + " words");
+
+        // Old way: probe every node for an edge into the word
+        double[] probed = new double[n];
+        double probeSeconds = iterate(graph, outSums, iterations, probed, (g, toId, ranks, sums) -> {
+            double sum = 0.0;
+            for (int fromId = 0; fromId < n; fromId++) {
+                int weight = g.getEdgeWeight(fromId, toId);
+                if (weight > 0) {
+                    sum += ranks[fromId] * weight / sums[fromId];
+                }
+            }
+            return sum;
+        });
+        System.out.println(String.format("%d PageRank iteration(s) probing every node for in-edges: %.1f s",
+                iterations, probeSeconds));
+
+        // Reverse index
+        double[] indexed = new double[n];
+        double indexSeconds = iterate(graph, outSums, iterations, indexed, (g, toId, ranks, sums) -> {
+            double sum = 0.0;
+            for (Map.Entry<String, Integer> entry : g.getIncomingEdges(g.getWord(toId)).entrySet()) {
+                int fromId = g.getNodeId(entry.getKey());
+                sum += ranks[fromId] * entry.getValue() / sums[fromId];
+            }
+            return sum;
+        });
+        System.out.println(String.format("%d PageRank iteration(s) reading in-edges from the reverse index: %.3f s, %.0fx faster",
+                iterations, indexSeconds, probeSeconds / indexSeconds));
+
+        double maxDifference = 0.0;
+        for (int id = 0; id < n; id++) {
+            maxDifference = Math.max(maxDifference, Math.abs(probed[id] - indexed[id]));
+        }
+        System.out.println(String.format("Largest rank difference between the two: %.1e", maxDifference));
+
+        WordGraph wordGraph = new WordGraph();
+        wordGraph.buildGraphFromFile(textFile.toString());
+        Files.delete(textFile);
+        long start = System.nanoTime();
+        wordGraph.calcPageRank(word(0));
+        System.out.println(String.format("Full calcPageRank of WordGraph on the same text: %.2f s",
+                (System.nanoTime() - start) / 1e9));
+
+        if (maxDifference > 1e-12) {
+            System.out.println("FAILED: the two ways of finding in-edges give different ranks");
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Run PageRank iterations from uniform ranks, in the form calcPageRank used before the index
+     * @param ranks Filled with the final ranks
+     * @return Elapsed seconds
+     */
+    private static double iterate(DirectedGraph graph, int[] outSums, int iterations, double[] ranks, InEdges inEdges) {
+        int n = ranks.length;
+        Arrays.fill(ranks, 1.0 / n);
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            double sinkRank = 0.0;
+            for (int id = 0; id < n; id++) {
+                if (outSums[id] == 0) {
+                    sinkRank += ranks[id];
+                }
+            }
+            double[] next = new double[n];
+            for (int toId = 0; toId < n; toId++) {
+                double sum = inEdges.contribution(graph, toId, ranks, outSums) + sinkRank / n;
+                next[toId] = (1 - DAMPING_FACTOR) / n + DAMPING_FACTOR * sum;
+            }
+            System.arraycopy(next, 0, ranks, 0, n);
+        }
+        return (System.nanoTime() - start) / 1e9;
+    }
+
+    /**
+     * Spell a rank as a word of lowercase letters, like the words the tokenizer produces
+     */
+    private static String word(int rank) {
+        StringBuilder word = new StringBuilder("w");
+        for (int r = rank; ; r /= 26) {
+            word.append((char) ('a' + r % 26));
+            if (r < 26) {
+                break;
+            }
+        }
+        return word.toString();
+    }
+}